@@ -0,0 +1,42 @@
+package com.course.mongodb.m01.config;
+
+import com.course.mongodb.m01.domain.BankAccount;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Accounts written before MongoConfig switched BigDecimal to Decimal128
+// hold amounts as strings, which $gte never matches and $inc rejects.
+// Converts them in place at startup; documents already on Decimal128 are
+// not touched, so reruns are no-ops.
+@Component
+public class DecimalBalanceMigration {
+
+    private final MongoTemplate mongoTemplate;
+
+    public DecimalBalanceMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public long migrate() {
+        Document legacy = new Document("$or", List.of(
+            new Document("balance.amount", new Document("$type", "string")),
+            new Document("transactions.amount.amount", new Document("$type", "string"))));
+        Document transactions = new Document("$map", new Document("input", new Document("$ifNull", List.of("$transactions", List.of())))
+            .append("as", "t")
+            .append("in", new Document("$mergeObjects", List.of("$$t",
+                new Document("amount", new Document("$mergeObjects", List.of("$$t.amount",
+                    new Document("amount", new Document("$toDecimal", "$$t.amount.amount")))))))));
+        List<Document> pipeline = List.of(new Document("$set", new Document()
+            .append("balance.amount", new Document("$toDecimal", "$balance.amount"))
+            .append("transactions", transactions)));
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(BankAccount.class))
+            .updateMany(legacy, pipeline)
+            .getModifiedCount();
+    }
+}
@@ -0,0 +1,74 @@
+package com.course.mongodb.m01.config;
+
+import com.course.mongodb.m01.domain.MinorUnitMoney;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+public final class MinorUnitMoneyConverters {
+
+    public enum Representation {
+        INT64,
+        DECIMAL128
+    }
+
+    private MinorUnitMoneyConverters() {
+    }
+
+    // INT64 stores {minorUnits: NumberLong, currency}; DECIMAL128 stores
+    // {amount: NumberDecimal, currency} in major units, the same shape as Money.
+    @WritingConverter
+    public static class Writer implements Converter<MinorUnitMoney, Document> {
+        private final Representation representation;
+
+        public Writer(Representation representation) {
+            this.representation = representation;
+        }
+
+        @Override
+        public Document convert(MinorUnitMoney source) {
+            Document document = new Document();
+            if (representation == Representation.INT64) {
+                document.put("minorUnits", source.minorUnits());
+            } else {
+                document.put("amount", new Decimal128(source.toBigDecimal()));
+            }
+            document.put("currency", source.currency().getCurrencyCode());
+            return document;
+        }
+    }
+
+    // Reads either representation, so the storage format can be switched
+    // without migrating existing documents. Documents with neither, or
+    // without a currency, are rejected with IllegalArgumentException.
+    @ReadingConverter
+    public static class Reader implements Converter<Document, MinorUnitMoney> {
+        @Override
+        public MinorUnitMoney convert(Document source) {
+            Object currencyCode = source.get("currency");
+            if (!(currencyCode instanceof String code)) {
+                throw new IllegalArgumentException("MinorUnitMoney document has no currency: " + source.toJson());
+            }
+            Currency currency = Currency.getInstance(code);
+            Object minorUnits = source.get("minorUnits");
+            if (minorUnits instanceof Number number) {
+                return new MinorUnitMoney(number.longValue(), currency);
+            }
+            Object amount = source.get("amount");
+            if (amount == null) {
+                throw new IllegalArgumentException(
+                    "MinorUnitMoney document has neither minorUnits nor amount: " + source.toJson());
+            }
+            BigDecimal major = amount instanceof Decimal128 decimal
+                ? decimal.bigDecimalValue()
+                : new BigDecimal(amount.toString());
+            long units = major.movePointRight(currency.getDefaultFractionDigits()).longValueExact();
+            return new MinorUnitMoney(units, currency);
+        }
+    }
+}
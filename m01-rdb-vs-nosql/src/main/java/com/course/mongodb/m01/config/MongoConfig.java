@@ -0,0 +1,20 @@
+package com.course.mongodb.m01.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions.BigDecimalRepresentation;
+
+@Configuration
+public class MongoConfig {
+
+    // Money amounts are stored as Decimal128 so that balances can be
+    // updated server-side with $inc and compared with $gte. No entity stores
+    // MinorUnitMoney yet; register MinorUnitMoneyConverters here when one does.
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return MongoCustomConversions.create(adapter -> adapter
+            .bigDecimal(BigDecimalRepresentation.DECIMAL128)
+        );
+    }
+}
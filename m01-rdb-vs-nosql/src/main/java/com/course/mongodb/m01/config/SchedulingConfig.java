@@ -0,0 +1,10 @@
+package com.course.mongodb.m01.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Drives the periodic AccountService pending-history recovery.
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
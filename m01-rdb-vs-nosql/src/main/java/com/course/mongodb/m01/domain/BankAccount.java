@@ -1,23 +1,35 @@
 package com.course.mongodb.m01.domain;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.List;
 
 @Document(collection = "bank_accounts")
+@CompoundIndex(name = "pending_history_idx", def = "{'pendingHistory.timestamp': 1}")
 public class BankAccount {
+    public static final int RECENT_TRANSACTION_LIMIT = 50;
+
     @Id
     private String id;
+    @Indexed(unique = true)
     private String accountNumber;
     private String customerId;
     private Money balance;
     private AccountStatus status;
     private List<Transaction> transactions;
+    // Number of transactions ever applied; each one's ordinal picks its
+    // TransactionBucket.
+    private long historyCount;
+    // Applied transactions not yet confirmed in transaction_buckets.
+    private List<Transaction> pendingHistory;
 
     public BankAccount() {
         this.balance = Money.ZERO;
         this.status = AccountStatus.ACTIVE;
         this.transactions = new java.util.ArrayList<>();
+        this.pendingHistory = new java.util.ArrayList<>();
     }
 
     public BankAccount(String accountNumber, String customerId, Money initialBalance) {
@@ -50,4 +62,8 @@ public class BankAccount {
     public void setStatus(AccountStatus status) { this.status = status; }
     public List<Transaction> getTransactions() { return transactions; }
     public void setTransactions(List<Transaction> transactions) { this.transactions = transactions; }
+    public long getHistoryCount() { return historyCount; }
+    public void setHistoryCount(long historyCount) { this.historyCount = historyCount; }
+    public List<Transaction> getPendingHistory() { return pendingHistory; }
+    public void setPendingHistory(List<Transaction> pendingHistory) { this.pendingHistory = pendingHistory; }
 }
@@ -0,0 +1,97 @@
+package com.course.mongodb.m01.domain;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * Money held as a {@code long} count of minor units (e.g. cents) with a
+ * shared {@link Currency} instance. Arithmetic is overflow-checked and never
+ * touches {@code BigDecimal}; intermediate results are small enough for the
+ * JIT to scalar-replace, and {@link Accumulator} sums without any objects.
+ */
+public record MinorUnitMoney(long minorUnits, Currency currency) {
+    public static final Currency TWD = Currency.getInstance("TWD");
+    public static final MinorUnitMoney ZERO = new MinorUnitMoney(0L, TWD);
+
+    public static MinorUnitMoney of(long minorUnits) {
+        return new MinorUnitMoney(minorUnits, TWD);
+    }
+
+    public static MinorUnitMoney of(long minorUnits, String currencyCode) {
+        return new MinorUnitMoney(minorUnits, Currency.getInstance(currencyCode));
+    }
+
+    public static MinorUnitMoney fromMoney(Money money) {
+        Currency currency = Currency.getInstance(money.currency());
+        long minorUnits = money.amount().movePointRight(currency.getDefaultFractionDigits()).longValueExact();
+        return new MinorUnitMoney(minorUnits, currency);
+    }
+
+    public Money toMoney() {
+        return new Money(toBigDecimal(), currency.getCurrencyCode());
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.getDefaultFractionDigits());
+    }
+
+    public MinorUnitMoney add(MinorUnitMoney other) {
+        requireSameCurrency(other);
+        return new MinorUnitMoney(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public MinorUnitMoney subtract(MinorUnitMoney other) {
+        requireSameCurrency(other);
+        return new MinorUnitMoney(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public boolean isGreaterThanOrEqual(MinorUnitMoney other) {
+        requireSameCurrency(other);
+        return minorUnits >= other.minorUnits;
+    }
+
+    private void requireSameCurrency(MinorUnitMoney other) {
+        // Currency instances are cached per code, so identity comparison is enough.
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+
+    /**
+     * Mutable running total for posting loops; adds and subtracts in place.
+     */
+    public static final class Accumulator {
+        private final Currency currency;
+        private long minorUnits;
+
+        public Accumulator(Currency currency) {
+            this.currency = currency;
+        }
+
+        public Accumulator add(MinorUnitMoney amount) {
+            checkCurrency(amount);
+            minorUnits = Math.addExact(minorUnits, amount.minorUnits);
+            return this;
+        }
+
+        public Accumulator subtract(MinorUnitMoney amount) {
+            checkCurrency(amount);
+            minorUnits = Math.subtractExact(minorUnits, amount.minorUnits);
+            return this;
+        }
+
+        public long minorUnits() {
+            return minorUnits;
+        }
+
+        public MinorUnitMoney toMoney() {
+            return new MinorUnitMoney(minorUnits, currency);
+        }
+
+        private void checkCurrency(MinorUnitMoney amount) {
+            if (currency != amount.currency) {
+                throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + amount.currency);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.course.mongodb.m01.domain;
+
+public record Posting(
+    String accountNumber,
+    Money amount,
+    TransactionType type
+) {
+    public static Posting deposit(String accountNumber, Money amount) {
+        return new Posting(accountNumber, amount, TransactionType.DEPOSIT);
+    }
+
+    public static Posting withdrawal(String accountNumber, Money amount) {
+        return new Posting(accountNumber, amount, TransactionType.WITHDRAWAL);
+    }
+}
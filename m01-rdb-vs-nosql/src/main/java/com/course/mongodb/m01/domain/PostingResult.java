@@ -0,0 +1,15 @@
+package com.course.mongodb.m01.domain;
+
+public record PostingResult(
+    Posting posting,
+    Status status
+) {
+    public enum Status {
+        APPLIED,
+        INSUFFICIENT_FUNDS,
+        NOT_FOUND,
+        // The account's guard kept failing; nothing was applied, so the
+        // posting can be resubmitted.
+        CONFLICT
+    }
+}
@@ -1,6 +1,7 @@
 package com.course.mongodb.m01.domain;
 
 import java.time.Instant;
+import java.util.UUID;
 
 public record Transaction(
     String id,
@@ -10,6 +11,6 @@ public record Transaction(
     Instant timestamp
 ) {
     public static Transaction create(String accountId, Money amount, TransactionType type) {
-        return new Transaction(null, accountId, amount, type, Instant.now());
+        return new Transaction(UUID.randomUUID().toString(), accountId, amount, type, Instant.now());
     }
 }
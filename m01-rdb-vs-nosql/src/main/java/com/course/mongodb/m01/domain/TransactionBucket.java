@@ -0,0 +1,48 @@
+package com.course.mongodb.m01.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
+import java.util.List;
+
+// Bucket n of an account holds the transactions with history ordinals
+// [n * MAX_SIZE, (n + 1) * MAX_SIZE); the unique (accountNumber, sequence)
+// key keeps concurrent appends from opening duplicate buckets.
+@Document(collection = "transaction_buckets")
+@CompoundIndexes({
+    @CompoundIndex(name = "account_sequence_idx", def = "{'accountNumber': 1, 'sequence': 1}", unique = true),
+    @CompoundIndex(name = "account_start_id_idx", def = "{'accountNumber': 1, 'startTime': -1, '_id': -1}")
+})
+public class TransactionBucket {
+    public static final int MAX_SIZE = 200;
+
+    @Id
+    private String id;
+    private String accountNumber;
+    private long sequence;
+    private Instant startTime;
+    private Instant endTime;
+    private int count;
+    private List<Transaction> transactions;
+
+    public TransactionBucket() {
+        this.transactions = new java.util.ArrayList<>();
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getAccountNumber() { return accountNumber; }
+    public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+    public Instant getStartTime() { return startTime; }
+    public void setStartTime(Instant startTime) { this.startTime = startTime; }
+    public Instant getEndTime() { return endTime; }
+    public void setEndTime(Instant endTime) { this.endTime = endTime; }
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+    public List<Transaction> getTransactions() { return transactions; }
+    public void setTransactions(List<Transaction> transactions) { this.transactions = transactions; }
+}
@@ -4,5 +4,9 @@ public enum TransactionType {
     DEPOSIT,
     WITHDRAWAL,
     TRANSFER_IN,
-    TRANSFER_OUT
+    TRANSFER_OUT;
+
+    public boolean isDebit() {
+        return this == WITHDRAWAL || this == TRANSFER_OUT;
+    }
 }
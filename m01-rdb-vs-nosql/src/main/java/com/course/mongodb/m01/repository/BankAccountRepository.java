@@ -6,4 +6,5 @@ import java.util.Optional;
 
 public interface BankAccountRepository extends MongoRepository<BankAccount, String> {
     Optional<BankAccount> findByAccountNumber(String accountNumber);
+    boolean existsByAccountNumber(String accountNumber);
 }
@@ -0,0 +1,10 @@
+package com.course.mongodb.m01.repository;
+
+import com.course.mongodb.m01.domain.TransactionBucket;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import java.util.List;
+
+public interface TransactionBucketRepository extends MongoRepository<TransactionBucket, String> {
+    List<TransactionBucket> findByAccountNumberOrderByStartTimeDescIdDesc(String accountNumber, Pageable pageable);
+}
@@ -3,16 +3,53 @@ package com.course.mongodb.m01.service;
 import com.course.mongodb.m01.domain.BankAccount;
 import com.course.mongodb.m01.domain.Money;
 import com.course.mongodb.m01.domain.AccountStatus;
+import com.course.mongodb.m01.domain.Posting;
+import com.course.mongodb.m01.domain.PostingResult;
+import com.course.mongodb.m01.domain.Transaction;
+import com.course.mongodb.m01.domain.TransactionType;
 import com.course.mongodb.m01.repository.BankAccountRepository;
+import com.mongodb.bulk.BulkWriteResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
 @Service
 public class AccountService {
 
+    private static final Logger log = LoggerFactory.getLogger(AccountService.class);
+
+    private static final int MAX_POSTING_ROUNDS = 5;
+    private static final long DRAIN_INTERVAL_MS = 1_000;
+    private static final int DRAIN_BATCH_SIZE = 500;
+
     private final BankAccountRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final TransactionHistoryService historyService;
 
-    public AccountService(BankAccountRepository repository) {
+    public AccountService(BankAccountRepository repository, MongoTemplate mongoTemplate,
+            TransactionHistoryService historyService) {
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.historyService = historyService;
     }
 
     public BankAccount createAccount(String accountNumber, String customerId, Money initialBalance) {
@@ -25,19 +62,131 @@ public class AccountService {
     }
 
     public void deposit(String accountNumber, Money amount) {
-        BankAccount account = findByAccountNumber(accountNumber);
-        if (account != null) {
-            account.deposit(amount);
-            repository.save(account);
-        }
+        Transaction transaction = Transaction.create(accountNumber, amount, TransactionType.DEPOSIT);
+        post(transaction, Query.query(Criteria.where("accountNumber").is(accountNumber)));
     }
 
     public void withdraw(String accountNumber, Money amount) {
-        BankAccount account = findByAccountNumber(accountNumber);
-        if (account != null) {
-            account.withdraw(amount);
-            repository.save(account);
+        Transaction transaction = Transaction.create(accountNumber, amount, TransactionType.WITHDRAWAL);
+        Query query = Query.query(Criteria.where("accountNumber").is(accountNumber)
+            .and("balance.amount").gte(amount.amount()));
+        if (post(transaction, query)) {
+            return;
+        }
+        // Only a failed guard costs a second round trip, to tell a missing
+        // account apart from an insufficient balance.
+        if (repository.existsByAccountNumber(accountNumber)) {
+            throw new IllegalArgumentException("Insufficient funds");
+        }
+    }
+
+    // The balance, the recent window, the history ordinal and a pending
+    // copy of the transaction change in one atomic update, the only round
+    // trip on the request path; drainPendingHistory moves the copy into a
+    // bucket afterwards.
+    private boolean post(Transaction transaction, Query query) {
+        return mongoTemplate.updateFirst(query, balanceUpdate(transaction), BankAccount.class).getMatchedCount() > 0;
+    }
+
+    // Copies pending transactions into buckets, then pulls them from their
+    // accounts. pendingHistory holds an account's newest transactions in
+    // ordinal order (each push comes with the historyCount bump and only
+    // this drain pulls, always a prefix), so the first pending ordinal is
+    // historyCount - pendingHistory.size(). Transactions already bucketed by
+    // a run that died before its pull are skipped. One drain per database
+    // at a time; runs are serialized within the process.
+    @Scheduled(fixedDelay = DRAIN_INTERVAL_MS)
+    public synchronized int drainPendingHistory() {
+        // A range on the indexed timestamp rather than $exists, which would
+        // fetch every account.
+        Query query = Query.query(Criteria.where("pendingHistory.timestamp").gt(Instant.EPOCH))
+            .limit(DRAIN_BATCH_SIZE);
+        query.fields().include("accountNumber").include("historyCount").include("pendingHistory");
+        List<TransactionHistoryService.Append> drained = new ArrayList<>();
+        for (BankAccount account : mongoTemplate.find(query, BankAccount.class)) {
+            List<Transaction> pending = account.getPendingHistory();
+            drained.add(new TransactionHistoryService.Append(
+                account.getAccountNumber(), account.getHistoryCount() - pending.size(), pending));
+        }
+        if (drained.isEmpty()) {
+            return 0;
+        }
+        try {
+            historyService.appendAll(notYetBucketed(drained, historyService.findBucketedIds(drained)));
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BankAccount.class);
+            for (TransactionHistoryService.Append append : drained) {
+                bulk.updateOne(Query.query(Criteria.where("accountNumber").is(append.accountNumber())),
+                    new Update().pullAll("pendingHistory", append.transactions().toArray()));
+            }
+            bulk.execute();
+        } catch (RuntimeException e) {
+            log.warn("Draining pending history of {} account(s) failed; retrying next run", drained.size(), e);
+            return 0;
+        }
+        return drained.stream().mapToInt(append -> append.transactions().size()).sum();
+    }
+
+    // Applies a batch with one balance read and one unordered bulk write per
+    // round. Outcomes are decided per account in posting order against the
+    // balance read, and each account gets a single $inc of the net amount
+    // guarded by the lowest balance that keeps every applied debit covered
+    // and by the history count read, which fixes the ordinals of its new
+    // transactions. Accounts whose guard fails because of a concurrent
+    // write are re-read and retried in the next round, for at most
+    // MAX_POSTING_ROUNDS rounds; postings still unapplied after that are
+    // reported as CONFLICT.
+    public List<PostingResult> applyPostings(List<Posting> postings) {
+        PostingResult.Status[] statuses = new PostingResult.Status[postings.size()];
+        Map<String, List<Integer>> pending = new LinkedHashMap<>();
+        for (int i = 0; i < postings.size(); i++) {
+            pending.computeIfAbsent(postings.get(i).accountNumber(), key -> new ArrayList<>()).add(i);
+        }
+
+        for (int round = 0; round < MAX_POSTING_ROUNDS && !pending.isEmpty(); round++) {
+            Map<String, BankAccount> accounts = loadAccounts(pending.keySet());
+            Map<String, AccountPlan> plans = new LinkedHashMap<>();
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BankAccount.class);
+
+            for (Map.Entry<String, List<Integer>> entry : pending.entrySet()) {
+                BankAccount account = accounts.get(entry.getKey());
+                if (account == null) {
+                    entry.getValue().forEach(i -> statuses[i] = PostingResult.Status.NOT_FOUND);
+                    continue;
+                }
+                AccountPlan plan = AccountPlan.of(account, entry.getValue(), postings);
+                if (plan.transactions().isEmpty()) {
+                    plan.statuses().forEach((i, status) -> statuses[i] = status);
+                    continue;
+                }
+                bulk.updateOne(plan.guard(), plan.update());
+                plans.put(entry.getKey(), plan);
+            }
+            if (plans.isEmpty()) {
+                break;
+            }
+
+            BulkWriteResult result = bulk.execute();
+            Set<String> applied = result.getMatchedCount() == plans.size()
+                ? plans.keySet()
+                : findApplied(plans.values());
+
+            Map<String, List<Integer>> retry = new LinkedHashMap<>();
+            for (AccountPlan plan : plans.values()) {
+                if (applied.contains(plan.accountNumber())) {
+                    plan.statuses().forEach((i, status) -> statuses[i] = status);
+                } else {
+                    retry.put(plan.accountNumber(), pending.get(plan.accountNumber()));
+                }
+            }
+            pending = retry;
+        }
+
+        List<PostingResult> results = new ArrayList<>(postings.size());
+        for (int i = 0; i < postings.size(); i++) {
+            PostingResult.Status status = statuses[i] != null ? statuses[i] : PostingResult.Status.CONFLICT;
+            results.add(new PostingResult(postings.get(i), status));
         }
+        return results;
     }
 
     public void freezeAccount(String accountNumber) {
@@ -47,4 +196,137 @@ public class AccountService {
             repository.save(account);
         }
     }
+
+    private Map<String, BankAccount> loadAccounts(Collection<String> accountNumbers) {
+        Query query = Query.query(Criteria.where("accountNumber").in(accountNumbers));
+        query.fields().include("accountNumber").include("balance").include("historyCount");
+        Map<String, BankAccount> accounts = new HashMap<>();
+        for (BankAccount account : mongoTemplate.find(query, BankAccount.class)) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+        return accounts;
+    }
+
+    // Splits each append into runs of transactions missing from the buckets,
+    // keeping every transaction at its own ordinal.
+    private static List<TransactionHistoryService.Append> notYetBucketed(
+            List<TransactionHistoryService.Append> appends, Set<String> bucketed) {
+        List<TransactionHistoryService.Append> missing = new ArrayList<>();
+        for (TransactionHistoryService.Append append : appends) {
+            List<Transaction> transactions = append.transactions();
+            int from = 0;
+            while (from < transactions.size()) {
+                if (bucketed.contains(transactions.get(from).id())) {
+                    from++;
+                    continue;
+                }
+                int to = from;
+                while (to < transactions.size() && !bucketed.contains(transactions.get(to).id())) {
+                    to++;
+                }
+                missing.add(new TransactionHistoryService.Append(append.accountNumber(),
+                    append.firstOrdinal() + from, transactions.subList(from, to)));
+                from = to;
+            }
+        }
+        return missing;
+    }
+
+    // The last transaction pushed for each account marks whether its update
+    // landed. The recent window can lose it to later posts, so look where
+    // it cannot leave: pendingHistory first, then its bucket. The drain
+    // copies to the bucket before pulling, so a marker missing from the
+    // first query is already in the second.
+    private Set<String> findApplied(Collection<AccountPlan> plans) {
+        Map<String, AccountPlan> byMarker = new HashMap<>();
+        plans.forEach(plan -> byMarker.put(plan.marker().id(), plan));
+        Query query = Query.query(Criteria.where("pendingHistory.id").in(byMarker.keySet()));
+        query.fields().include("accountNumber");
+        Set<String> applied = new HashSet<>();
+        for (BankAccount account : mongoTemplate.find(query, BankAccount.class)) {
+            applied.add(account.getAccountNumber());
+        }
+
+        List<TransactionHistoryService.Append> drained = plans.stream()
+            .filter(plan -> !applied.contains(plan.accountNumber()))
+            .map(plan -> new TransactionHistoryService.Append(plan.accountNumber(),
+                plan.historyCount() + plan.transactions().size() - 1, List.of(plan.marker())))
+            .toList();
+        for (String marker : historyService.findBucketedIds(drained)) {
+            applied.add(byMarker.get(marker).accountNumber());
+        }
+        return applied;
+    }
+
+    private record AccountPlan(
+        String accountNumber,
+        Map<Integer, PostingResult.Status> statuses,
+        List<Transaction> transactions,
+        BigDecimal delta,
+        BigDecimal requiredBalance,
+        long historyCount
+    ) {
+        static AccountPlan of(BankAccount account, List<Integer> indices, List<Posting> postings) {
+            String accountNumber = account.getAccountNumber();
+            BigDecimal balance = account.getBalance().amount();
+            Map<Integer, PostingResult.Status> statuses = new LinkedHashMap<>();
+            List<Transaction> transactions = new ArrayList<>();
+            BigDecimal delta = BigDecimal.ZERO;
+            BigDecimal required = BigDecimal.ZERO;
+            for (int i : indices) {
+                Posting posting = postings.get(i);
+                BigDecimal amount = posting.amount().amount();
+                if (posting.type().isDebit()) {
+                    if (balance.add(delta).compareTo(amount) < 0) {
+                        statuses.put(i, PostingResult.Status.INSUFFICIENT_FUNDS);
+                        continue;
+                    }
+                    delta = delta.subtract(amount);
+                    required = required.max(delta.negate());
+                } else {
+                    delta = delta.add(amount);
+                }
+                statuses.put(i, PostingResult.Status.APPLIED);
+                transactions.add(new Transaction(UUID.randomUUID().toString(), accountNumber,
+                    posting.amount(), posting.type(), Instant.now()));
+            }
+            return new AccountPlan(accountNumber, statuses, transactions, delta, required, account.getHistoryCount());
+        }
+
+        Query guard() {
+            // Accounts created before historyCount existed have no such field.
+            Criteria criteria = Criteria.where("accountNumber").is(accountNumber).and("historyCount")
+                .in(historyCount == 0 ? Arrays.asList(0L, null) : List.of(historyCount));
+            if (requiredBalance.signum() > 0) {
+                criteria = criteria.and("balance.amount").gte(requiredBalance);
+            }
+            return Query.query(criteria);
+        }
+
+        Update update() {
+            Update update = new Update()
+                .inc("balance.amount", delta)
+                .inc("historyCount", (long) transactions.size());
+            update.push("transactions").slice(-BankAccount.RECENT_TRANSACTION_LIMIT).each(transactions.toArray());
+            update.push("pendingHistory").each(transactions.toArray());
+            return update;
+        }
+
+        Transaction marker() {
+            return transactions.get(transactions.size() - 1);
+        }
+    }
+
+    // The embedded list only keeps the most recent window; the full history
+    // lives in transaction_buckets.
+    private Update balanceUpdate(Transaction transaction) {
+        BigDecimal amount = transaction.amount().amount();
+        BigDecimal delta = transaction.type().isDebit() ? amount.negate() : amount;
+        Update update = new Update()
+            .inc("balance.amount", delta)
+            .inc("historyCount", 1L);
+        update.push("transactions").slice(-BankAccount.RECENT_TRANSACTION_LIMIT).each(transaction);
+        update.push("pendingHistory").each(transaction);
+        return update;
+    }
 }
@@ -0,0 +1,121 @@
+package com.course.mongodb.m01.service;
+
+import com.course.mongodb.m01.domain.Transaction;
+import com.course.mongodb.m01.domain.TransactionBucket;
+import com.course.mongodb.m01.repository.TransactionBucketRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class TransactionHistoryService {
+
+    // Transactions of one account with consecutive history ordinals,
+    // starting at firstOrdinal.
+    public record Append(String accountNumber, long firstOrdinal, List<Transaction> transactions) {
+    }
+
+    private final TransactionBucketRepository repository;
+    private final MongoTemplate mongoTemplate;
+
+    public TransactionHistoryService(TransactionBucketRepository repository, MongoTemplate mongoTemplate) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void append(String accountNumber, long firstOrdinal, List<Transaction> transactions) {
+        appendAll(List.of(new Append(accountNumber, firstOrdinal, transactions)));
+    }
+
+    // The ordinal decides the bucket, so concurrent appends upsert the same
+    // (accountNumber, sequence) document and buckets never exceed MAX_SIZE.
+    public void appendAll(List<Append> appends) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, TransactionBucket.class);
+        int operations = 0;
+        for (Append append : appends) {
+            List<Transaction> transactions = append.transactions();
+            int from = 0;
+            while (from < transactions.size()) {
+                long sequence = (append.firstOrdinal() + from) / TransactionBucket.MAX_SIZE;
+                int to = (int) Math.min(transactions.size(),
+                    (sequence + 1) * TransactionBucket.MAX_SIZE - append.firstOrdinal());
+                bulk.upsert(bucket(append.accountNumber(), sequence), bucketUpdate(transactions.subList(from, to)));
+                operations++;
+                from = to;
+            }
+        }
+        if (operations > 0) {
+            bulk.execute();
+        }
+    }
+
+    // Ids of the appended transactions that are already stored, looked up
+    // through the (accountNumber, sequence) index on the buckets their
+    // ordinals map to.
+    public Set<String> findBucketedIds(List<Append> appends) {
+        List<Criteria> buckets = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (Append append : appends) {
+            long lastOrdinal = append.firstOrdinal() + append.transactions().size() - 1;
+            buckets.add(Criteria.where("accountNumber").is(append.accountNumber()).and("sequence")
+                .gte(append.firstOrdinal() / TransactionBucket.MAX_SIZE)
+                .lte(lastOrdinal / TransactionBucket.MAX_SIZE));
+            append.transactions().forEach(transaction -> ids.add(transaction.id()));
+        }
+        Set<String> bucketed = new HashSet<>();
+        if (ids.isEmpty()) {
+            return bucketed;
+        }
+        Query query = Query.query(Criteria.where("transactions.id").in(ids).orOperator(buckets));
+        query.fields().include("transactions.id");
+        for (TransactionBucket bucket : mongoTemplate.find(query, TransactionBucket.class)) {
+            for (Transaction transaction : bucket.getTransactions()) {
+                if (ids.contains(transaction.id())) {
+                    bucketed.add(transaction.id());
+                }
+            }
+        }
+        return bucketed;
+    }
+
+    public List<TransactionBucket> findLatestBuckets(String accountNumber, int limit) {
+        return repository.findByAccountNumberOrderByStartTimeDescIdDesc(accountNumber, PageRequest.of(0, limit));
+    }
+
+    // Keyset paging on (startTime, _id): pass the oldest bucket already seen.
+    // The _id tiebreak keeps buckets that share a startTime from being skipped.
+    public List<TransactionBucket> findBucketsBefore(String accountNumber, Instant startTime, String id, int limit) {
+        Query query = Query.query(Criteria.where("accountNumber").is(accountNumber).orOperator(
+                Criteria.where("startTime").lt(startTime),
+                Criteria.where("startTime").is(startTime).and("id").lt(id)))
+            .with(Sort.by(Sort.Order.desc("startTime"), Sort.Order.desc("id")))
+            .limit(limit);
+        return mongoTemplate.find(query, TransactionBucket.class);
+    }
+
+    private Query bucket(String accountNumber, long sequence) {
+        return Query.query(Criteria.where("accountNumber").is(accountNumber).and("sequence").is(sequence));
+    }
+
+    private Update bucketUpdate(List<Transaction> transactions) {
+        Instant first = transactions.stream().map(Transaction::timestamp).min(Comparator.naturalOrder()).orElseThrow();
+        Instant last = transactions.stream().map(Transaction::timestamp).max(Comparator.naturalOrder()).orElseThrow();
+        return new Update()
+            .inc("count", transactions.size())
+            .min("startTime", first)
+            .max("endTime", last)
+            .push("transactions").each(transactions.toArray());
+    }
+}
@@ -0,0 +1,92 @@
+package com.course.mongodb.m01;
+
+import com.course.mongodb.m01.domain.BankAccount;
+import com.course.mongodb.m01.domain.Money;
+import com.course.mongodb.m01.repository.BankAccountRepository;
+import com.course.mongodb.m01.service.AccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the read-modify-write deposit path with the atomic $inc path
+ * when many threads post to the same account.
+ *
+ * Run with {@code ./gradlew :m01-rdb-vs-nosql:benchmark}.
+ */
+@SpringBootTest
+@Tag("benchmark")
+class AccountConcurrencyBenchmark extends MongoIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int DEPOSITS_PER_THREAD = 200;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BankAccountRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void compareReadModifyWriteWithAtomicIncrement() throws Exception {
+        Result legacy = run("B-LEGACY", this::legacyDeposit);
+        Result atomic = run("B-ATOMIC", accountNumber -> accountService.deposit(accountNumber, Money.of(BigDecimal.ONE)));
+
+        System.out.printf("%-20s %12s %14s%n", "path", "ops/sec", "lost updates");
+        System.out.printf("%-20s %12.0f %14d%n", "read-modify-write", legacy.opsPerSecond(), legacy.lostUpdates());
+        System.out.printf("%-20s %12.0f %14d%n", "atomic $inc", atomic.opsPerSecond(), atomic.lostUpdates());
+
+        assertThat(atomic.lostUpdates()).isZero();
+    }
+
+    // The pre-atomic implementation of AccountService.deposit, kept here as the baseline.
+    private void legacyDeposit(String accountNumber) {
+        BankAccount account = repository.findByAccountNumber(accountNumber).orElseThrow();
+        account.deposit(Money.of(BigDecimal.ONE));
+        repository.save(account);
+    }
+
+    private Result run(String accountNumber, Consumer<String> deposit) throws Exception {
+        accountService.createAccount(accountNumber, "C-BENCH", Money.of(BigDecimal.ZERO));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < DEPOSITS_PER_THREAD; i++) {
+                    deposit.accept(accountNumber);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        long expected = (long) THREADS * DEPOSITS_PER_THREAD;
+        long actual = accountService.findByAccountNumber(accountNumber).getBalance().amount().longValueExact();
+        return new Result(expected * 1_000_000_000.0 / elapsed, expected - actual);
+    }
+
+    private record Result(double opsPerSecond, long lostUpdates) {
+    }
+}
@@ -1,16 +1,39 @@
 package com.course.mongodb.m01;
 
+import com.course.mongodb.m01.config.DecimalBalanceMigration;
 import com.course.mongodb.m01.domain.BankAccount;
 import com.course.mongodb.m01.domain.Money;
 import com.course.mongodb.m01.domain.AccountStatus;
+import com.course.mongodb.m01.domain.Posting;
+import com.course.mongodb.m01.domain.PostingResult;
+import com.course.mongodb.m01.domain.Transaction;
+import com.course.mongodb.m01.domain.TransactionBucket;
+import com.course.mongodb.m01.domain.TransactionType;
 import com.course.mongodb.m01.repository.BankAccountRepository;
+import com.course.mongodb.m01.repository.TransactionBucketRepository;
 import com.course.mongodb.m01.service.AccountService;
+import com.course.mongodb.m01.service.TransactionHistoryService;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -21,12 +44,25 @@ class AccountServiceTest extends MongoIntegrationTest {
     @Autowired
     private AccountService accountService;
 
+    @Autowired
+    private TransactionHistoryService historyService;
+
     @Autowired
     private BankAccountRepository repository;
 
+    @Autowired
+    private TransactionBucketRepository bucketRepository;
+
+    @Autowired
+    private DecimalBalanceMigration balanceMigration;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @BeforeEach
     void setUp() {
         repository.deleteAll();
+        bucketRepository.deleteAll();
     }
 
     @Test
@@ -55,7 +91,7 @@ class AccountServiceTest extends MongoIntegrationTest {
     void shouldWithdrawMoney() {
         accountService.createAccount("A001", "C001", Money.of(new BigDecimal("10000")));
         
-        accountService.withdraw("A001", Money.of(new BigDecimal("3000"));
+        accountService.withdraw("A001", Money.of(new BigDecimal("3000")));
 
         BankAccount account = accountService.findByAccountNumber("A001");
         assertThat(account.getBalance().amount()).isEqualByComparingTo(new BigDecimal("7000"));
@@ -70,6 +106,292 @@ class AccountServiceTest extends MongoIntegrationTest {
         ).isInstanceOf(IllegalArgumentException.class);
     }
 
+    @Test
+    void shouldRecordTransactionsWithBalanceUpdates() {
+        accountService.createAccount("A001", "C001", Money.of(new BigDecimal("10000")));
+
+        accountService.deposit("A001", Money.of(new BigDecimal("5000")));
+        accountService.withdraw("A001", Money.of(new BigDecimal("2000")));
+
+        BankAccount account = accountService.findByAccountNumber("A001");
+        assertThat(account.getBalance().amount()).isEqualByComparingTo(new BigDecimal("13000"));
+        assertThat(account.getTransactions())
+            .extracting(Transaction::type)
+            .containsExactly(TransactionType.DEPOSIT, TransactionType.WITHDRAWAL);
+    }
+
+    @Test
+    void shouldLeaveBalanceUntouchedWhenWithdrawalIsRejected() {
+        accountService.createAccount("A001", "C001", Money.of(new BigDecimal("1000")));
+
+        assertThatThrownBy(() ->
+            accountService.withdraw("A001", Money.of(new BigDecimal("2000")))
+        ).hasMessageContaining("Insufficient funds");
+
+        BankAccount account = accountService.findByAccountNumber("A001");
+        assertThat(account.getBalance().amount()).isEqualByComparingTo(new BigDecimal("1000"));
+        assertThat(account.getTransactions()).isEmpty();
+    }
+
+    @Test
+    void shouldIgnoreBalanceUpdatesForUnknownAccount() {
+        accountService.deposit("UNKNOWN", Money.of(new BigDecimal("100")));
+        accountService.withdraw("UNKNOWN", Money.of(new BigDecimal("100")));
+
+        assertThat(accountService.findByAccountNumber("UNKNOWN")).isNull();
+    }
+
+    @Test
+    void shouldNotLoseConcurrentDeposits() throws Exception {
+        accountService.createAccount("A001", "C001", Money.of(BigDecimal.ZERO));
+
+        int threads = 8;
+        int depositsPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < depositsPerThread; i++) {
+                    accountService.deposit("A001", Money.of(BigDecimal.ONE));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        accountService.drainPendingHistory();
+
+        BankAccount account = accountService.findByAccountNumber("A001");
+        assertThat(account.getBalance().amount())
+            .isEqualByComparingTo(new BigDecimal(threads * depositsPerThread));
+        assertThat(account.getTransactions()).hasSize(BankAccount.RECENT_TRANSACTION_LIMIT);
+        List<TransactionBucket> buckets = bucketRepository.findAll();
+        assertThat(buckets.stream().mapToInt(TransactionBucket::getCount).sum()).isEqualTo(threads * depositsPerThread);
+        assertThat(buckets).extracting(TransactionBucket::getSequence).containsExactlyInAnyOrder(0L);
+        assertThat(account.getPendingHistory()).isEmpty();
+    }
+
+    @Test
+    void shouldMoveHistoryIntoBoundedBuckets() {
+        accountService.createAccount("A001", "C001", Money.of(BigDecimal.ZERO));
+
+        int deposits = TransactionBucket.MAX_SIZE * 2 + 10;
+        for (int i = 0; i < deposits; i++) {
+            accountService.deposit("A001", Money.of(BigDecimal.ONE));
+        }
+        accountService.drainPendingHistory();
+
+        BankAccount account = accountService.findByAccountNumber("A001");
+        assertThat(account.getTransactions()).hasSize(BankAccount.RECENT_TRANSACTION_LIMIT);
+
+        List<TransactionBucket> firstPage = historyService.findLatestBuckets("A001", 2);
+        assertThat(firstPage).extracting(TransactionBucket::getCount)
+            .containsExactly(10, TransactionBucket.MAX_SIZE);
+
+        List<TransactionBucket> secondPage = historyService.findBucketsBefore(
+            "A001", firstPage.get(1).getStartTime(), firstPage.get(1).getId(), 2);
+        assertThat(secondPage).extracting(TransactionBucket::getCount)
+            .containsExactly(TransactionBucket.MAX_SIZE);
+        assertThat(bucketRepository.findAll()).extracting(TransactionBucket::getSequence)
+            .containsExactlyInAnyOrder(0L, 1L, 2L);
+    }
+
+    @Test
+    void shouldNotSkipBucketsSharingAStartTime() {
+        Instant startTime = Instant.parse("2024-01-01T00:00:00Z");
+        for (long sequence = 0; sequence < 3; sequence++) {
+            TransactionBucket bucket = new TransactionBucket();
+            bucket.setAccountNumber("A001");
+            bucket.setSequence(sequence);
+            bucket.setStartTime(startTime);
+            bucketRepository.save(bucket);
+        }
+
+        List<String> seen = new ArrayList<>();
+        List<TransactionBucket> page = historyService.findLatestBuckets("A001", 1);
+        while (!page.isEmpty()) {
+            TransactionBucket last = page.get(page.size() - 1);
+            seen.add(last.getId());
+            page = historyService.findBucketsBefore("A001", last.getStartTime(), last.getId(), 1);
+        }
+        assertThat(seen).hasSize(3).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void shouldSkipHistoryAlreadyBucketedByAnInterruptedDrain() {
+        accountService.createAccount("A001", "C001", Money.of(BigDecimal.ZERO));
+        Transaction copied = new Transaction("copied-1", "A001", Money.of(BigDecimal.ONE), TransactionType.DEPOSIT,
+            Instant.now());
+        Transaction pending = new Transaction("pending-2", "A001", Money.of(BigDecimal.TEN), TransactionType.DEPOSIT,
+            Instant.now());
+        // A drain that copied the first transaction and died before its pull.
+        historyService.append("A001", 0, List.of(copied));
+        mongoTemplate.updateFirst(Query.query(Criteria.where("accountNumber").is("A001")),
+            new Update().inc("historyCount", 2L).push("pendingHistory").each(copied, pending), BankAccount.class);
+
+        accountService.drainPendingHistory();
+        accountService.drainPendingHistory();
+
+        assertThat(accountService.findByAccountNumber("A001").getPendingHistory()).isEmpty();
+        assertThat(historyService.findLatestBuckets("A001", 10))
+            .flatExtracting(TransactionBucket::getTransactions)
+            .extracting(Transaction::id)
+            .containsExactly("copied-1", "pending-2");
+    }
+
+    @Test
+    void shouldKeepPendingHistoryWhenDrainFails() {
+        accountService.createAccount("A001", "C001", Money.of(BigDecimal.ZERO));
+        MongoTemplate failingBuckets = new MongoTemplate(mongoTemplate.getMongoDatabaseFactory(), mongoTemplate.getConverter()) {
+            @Override
+            public BulkOperations bulkOps(BulkOperations.BulkMode mode, Class<?> entityClass) {
+                if (entityClass == TransactionBucket.class) {
+                    throw new IllegalStateException("bucket write failed");
+                }
+                return super.bulkOps(mode, entityClass);
+            }
+        };
+        AccountService failing = new AccountService(repository, failingBuckets,
+            new TransactionHistoryService(bucketRepository, failingBuckets));
+
+        failing.deposit("A001", Money.of(BigDecimal.TEN));
+        assertThat(failing.applyPostings(List.of(Posting.deposit("A001", Money.of(BigDecimal.ONE)))))
+            .extracting(PostingResult::status)
+            .containsExactly(PostingResult.Status.APPLIED);
+        assertThat(failing.drainPendingHistory()).isZero();
+
+        accountService.drainPendingHistory();
+        BankAccount account = accountService.findByAccountNumber("A001");
+        assertThat(account.getBalance().amount()).isEqualByComparingTo(new BigDecimal("11"));
+        assertThat(account.getPendingHistory()).isEmpty();
+        assertThat(historyService.findLatestBuckets("A001", 1).get(0).getCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldApplyPostingsInBulkWithPerItemResults() {
+        accountService.createAccount("A001", "C001", Money.of(new BigDecimal("1000")));
+        accountService.createAccount("A002", "C002", Money.of(new BigDecimal("500")));
+
+        List<PostingResult> results = accountService.applyPostings(List.of(
+            Posting.deposit("A001", Money.of(new BigDecimal("200"))),
+            Posting.withdrawal("A002", Money.of(new BigDecimal("800"))),
+            Posting.withdrawal("A001", Money.of(new BigDecimal("1100"))),
+            Posting.deposit("A002", Money.of(new BigDecimal("400"))),
+            Posting.withdrawal("A002", Money.of(new BigDecimal("800"))),
+            Posting.deposit("MISSING", Money.of(new BigDecimal("100")))
+        ));
+
+        assertThat(results).extracting(PostingResult::status).containsExactly(
+            PostingResult.Status.APPLIED,
+            PostingResult.Status.INSUFFICIENT_FUNDS,
+            PostingResult.Status.APPLIED,
+            PostingResult.Status.APPLIED,
+            PostingResult.Status.APPLIED,
+            PostingResult.Status.NOT_FOUND
+        );
+        assertThat(accountService.findByAccountNumber("A001").getBalance().amount())
+            .isEqualByComparingTo(new BigDecimal("100"));
+        assertThat(accountService.findByAccountNumber("A002").getBalance().amount())
+            .isEqualByComparingTo(new BigDecimal("100"));
+        assertThat(accountService.findByAccountNumber("A002").getTransactions())
+            .extracting(Transaction::type)
+            .containsExactly(TransactionType.DEPOSIT, TransactionType.WITHDRAWAL);
+        accountService.drainPendingHistory();
+        assertThat(historyService.findLatestBuckets("A002", 1).get(0).getCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotReapplyPostingPushedOutOfTheRecentWindow() {
+        accountService.createAccount("A001", "C001", Money.of(new BigDecimal("1000")));
+        accountService.createAccount("A002", "C002", Money.of(new BigDecimal("1000")));
+        int interleaved = BankAccount.RECENT_TRANSACTION_LIMIT + 10;
+        MongoTemplate interleaving = new MongoTemplate(mongoTemplate.getMongoDatabaseFactory(), mongoTemplate.getConverter()) {
+            private boolean done;
+
+            @Override
+            public BulkOperations bulkOps(BulkOperations.BulkMode mode, Class<?> entityClass) {
+                BulkOperations bulk = super.bulkOps(mode, entityClass);
+                if (done || entityClass != BankAccount.class) {
+                    return bulk;
+                }
+                done = true;
+                return (BulkOperations) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {BulkOperations.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("execute")) {
+                            // A concurrent post makes A002's guard fail, so the
+                            // applied check runs...
+                            accountService.deposit("A002", Money.of(BigDecimal.ONE));
+                            Object result = invoke(method, bulk, args);
+                            // ...after enough posts to push A001's marker out of
+                            // the recent window and a drain out of pendingHistory.
+                            for (int i = 0; i < interleaved; i++) {
+                                accountService.deposit("A001", Money.of(BigDecimal.ONE));
+                            }
+                            accountService.drainPendingHistory();
+                            return result;
+                        }
+                        Object result = invoke(method, bulk, args);
+                        return result == bulk ? proxy : result;
+                    });
+            }
+        };
+        AccountService service = new AccountService(repository, interleaving, historyService);
+
+        List<PostingResult> results = service.applyPostings(List.of(
+            Posting.deposit("A001", Money.of(new BigDecimal("100"))),
+            Posting.deposit("A002", Money.of(new BigDecimal("100")))));
+
+        assertThat(results).extracting(PostingResult::status)
+            .containsExactly(PostingResult.Status.APPLIED, PostingResult.Status.APPLIED);
+        assertThat(accountService.findByAccountNumber("A001").getBalance().amount())
+            .isEqualByComparingTo(new BigDecimal(1100 + interleaved));
+        assertThat(accountService.findByAccountNumber("A002").getBalance().amount())
+            .isEqualByComparingTo(new BigDecimal("1101"));
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Test
+    void shouldReportConflictWhenGuardNeverMatches() {
+        // A string balance, as left by the pre-Decimal128 representation,
+        // never satisfies the $gte guard.
+        mongoTemplate.getCollection("bank_accounts").insertOne(new Document("accountNumber", "A001")
+            .append("balance", new Document("amount", "1000").append("currency", "TWD"))
+            .append("status", "ACTIVE"));
+
+        List<PostingResult> results = accountService.applyPostings(List.of(
+            Posting.withdrawal("A001", Money.of(new BigDecimal("100")))));
+
+        assertThat(results).extracting(PostingResult::status).containsExactly(PostingResult.Status.CONFLICT);
+    }
+
+    @Test
+    void shouldMigrateStringBalancesToDecimal128() {
+        mongoTemplate.getCollection("bank_accounts").insertOne(new Document("accountNumber", "A001")
+            .append("customerId", "C001")
+            .append("balance", new Document("amount", "1000").append("currency", "TWD"))
+            .append("status", "ACTIVE")
+            .append("transactions", List.of(new Document("accountId", "A001")
+                .append("amount", new Document("amount", "1000").append("currency", "TWD"))
+                .append("type", "DEPOSIT"))));
+
+        assertThat(balanceMigration.migrate()).isEqualTo(1);
+        assertThat(balanceMigration.migrate()).isZero();
+
+        accountService.withdraw("A001", Money.of(new BigDecimal("300")));
+        accountService.deposit("A001", Money.of(new BigDecimal("50")));
+        BankAccount account = accountService.findByAccountNumber("A001");
+        assertThat(account.getBalance().amount()).isEqualByComparingTo(new BigDecimal("750"));
+        assertThat(account.getTransactions().get(0).amount().amount()).isEqualByComparingTo(new BigDecimal("1000"));
+    }
+
     @Test
     void shouldFreezeAccount() {
         accountService.createAccount("A001", "C001", Money.of(new BigDecimal("10000")));
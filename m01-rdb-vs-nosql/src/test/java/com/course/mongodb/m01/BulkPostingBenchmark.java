@@ -0,0 +1,77 @@
+package com.course.mongodb.m01;
+
+import com.course.mongodb.m01.domain.Money;
+import com.course.mongodb.m01.domain.Posting;
+import com.course.mongodb.m01.domain.PostingResult;
+import com.course.mongodb.m01.repository.BankAccountRepository;
+import com.course.mongodb.m01.repository.TransactionBucketRepository;
+import com.course.mongodb.m01.service.AccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-of-day batch of postings: one deposit call per posting versus a single
+ * applyPostings call.
+ */
+@SpringBootTest
+@Tag("benchmark")
+class BulkPostingBenchmark extends MongoIntegrationTest {
+
+    private static final int ACCOUNTS = 1_000;
+    private static final int POSTINGS = 20_000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BankAccountRepository repository;
+
+    @Autowired
+    private TransactionBucketRepository bucketRepository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        bucketRepository.deleteAll();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountService.createAccount(accountNumber(i), "C-BENCH", Money.of(BigDecimal.ZERO));
+        }
+    }
+
+    @Test
+    void comparePerPostingCallsWithBulkPostings() {
+        List<Posting> postings = new ArrayList<>(POSTINGS);
+        for (int i = 0; i < POSTINGS; i++) {
+            postings.add(Posting.deposit(accountNumber(i % ACCOUNTS), Money.of(BigDecimal.ONE)));
+        }
+
+        long start = System.nanoTime();
+        postings.forEach(posting -> accountService.deposit(posting.accountNumber(), posting.amount()));
+        double perPostingMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        start = System.nanoTime();
+        List<PostingResult> results = accountService.applyPostings(postings);
+        double bulkMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        System.out.printf("%-16s %12s %12s%n", "path", "total ms", "postings/s");
+        System.out.printf("%-16s %12.0f %12.0f%n", "per posting", perPostingMillis, POSTINGS * 1000 / perPostingMillis);
+        System.out.printf("%-16s %12.0f %12.0f%n", "applyPostings", bulkMillis, POSTINGS * 1000 / bulkMillis);
+
+        assertThat(results).allMatch(result -> result.status() == PostingResult.Status.APPLIED);
+        assertThat(accountService.findByAccountNumber(accountNumber(0)).getBalance().amount())
+            .isEqualByComparingTo(new BigDecimal(2 * POSTINGS / ACCOUNTS));
+    }
+
+    private static String accountNumber(int i) {
+        return String.format("BULK-%05d", i);
+    }
+}
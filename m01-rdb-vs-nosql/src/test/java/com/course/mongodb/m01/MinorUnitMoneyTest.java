@@ -0,0 +1,100 @@
+package com.course.mongodb.m01;
+
+import com.course.mongodb.m01.config.MinorUnitMoneyConverters;
+import com.course.mongodb.m01.domain.MinorUnitMoney;
+import com.course.mongodb.m01.domain.Money;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinorUnitMoneyTest {
+
+    @Test
+    void shouldRoundTripThroughMoney() {
+        Money money = Money.of(new BigDecimal("1234.56"));
+
+        MinorUnitMoney minor = MinorUnitMoney.fromMoney(money);
+
+        assertThat(minor.minorUnits()).isEqualTo(123456L);
+        assertThat(minor.toMoney().amount()).isEqualByComparingTo(new BigDecimal("1234.56"));
+        assertThat(minor.toMoney().currency()).isEqualTo("TWD");
+    }
+
+    @Test
+    void shouldAddAndSubtract() {
+        MinorUnitMoney balance = MinorUnitMoney.of(10_000);
+
+        MinorUnitMoney result = balance.add(MinorUnitMoney.of(500)).subtract(MinorUnitMoney.of(2_000));
+
+        assertThat(result.minorUnits()).isEqualTo(8_500L);
+        assertThat(result.isGreaterThanOrEqual(MinorUnitMoney.of(8_500))).isTrue();
+    }
+
+    @Test
+    void shouldRejectOverflow() {
+        MinorUnitMoney max = MinorUnitMoney.of(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> max.add(MinorUnitMoney.of(1)))
+            .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void shouldRejectCurrencyMismatch() {
+        assertThatThrownBy(() -> MinorUnitMoney.of(100).add(MinorUnitMoney.of(100, "USD")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldAccumulateInPlace() {
+        MinorUnitMoney.Accumulator accumulator = new MinorUnitMoney.Accumulator(MinorUnitMoney.TWD);
+
+        accumulator.add(MinorUnitMoney.of(300)).add(MinorUnitMoney.of(200)).subtract(MinorUnitMoney.of(100));
+
+        assertThat(accumulator.toMoney()).isEqualTo(MinorUnitMoney.of(400));
+    }
+
+    @Test
+    void shouldRejectFractionsBelowMinorUnit() {
+        assertThatThrownBy(() -> MinorUnitMoney.fromMoney(Money.of(new BigDecimal("0.001"))))
+            .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void shouldRoundTripInt64Documents() {
+        MinorUnitMoney money = MinorUnitMoney.of(123_456, "USD");
+
+        Document document = new MinorUnitMoneyConverters.Writer(MinorUnitMoneyConverters.Representation.INT64)
+            .convert(money);
+
+        assertThat(document.get("minorUnits")).isEqualTo(123_456L);
+        assertThat(new MinorUnitMoneyConverters.Reader().convert(document)).isEqualTo(money);
+    }
+
+    @Test
+    void shouldRoundTripDecimal128Documents() {
+        MinorUnitMoney money = MinorUnitMoney.of(123_456, "USD");
+
+        Document document = new MinorUnitMoneyConverters.Writer(MinorUnitMoneyConverters.Representation.DECIMAL128)
+            .convert(money);
+
+        assertThat(document.get("amount")).isEqualTo(new Decimal128(new BigDecimal("1234.56")));
+        assertThat(new MinorUnitMoneyConverters.Reader().convert(document)).isEqualTo(money);
+    }
+
+    @Test
+    void shouldRejectMalformedDocuments() {
+        MinorUnitMoneyConverters.Reader reader = new MinorUnitMoneyConverters.Reader();
+
+        assertThatThrownBy(() -> reader.convert(new Document("currency", "TWD")))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("neither minorUnits nor amount");
+        assertThatThrownBy(() -> reader.convert(new Document("minorUnits", 100L)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("no currency");
+    }
+}
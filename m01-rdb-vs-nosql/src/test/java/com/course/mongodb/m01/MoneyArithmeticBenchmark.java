@@ -0,0 +1,88 @@
+package com.course.mongodb.m01;
+
+import com.course.mongodb.m01.domain.MinorUnitMoney;
+import com.course.mongodb.m01.domain.Money;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posts a batch of amounts onto a running balance with the BigDecimal
+ * {@link Money} record and with {@link MinorUnitMoney}. The GC profiler
+ * reports the allocation rate per operation next to the timings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Tag("benchmark")
+public class MoneyArithmeticBenchmark {
+
+    private static final int POSTINGS = 1_000;
+
+    private Money[] decimalPostings;
+    private MinorUnitMoney[] minorUnitPostings;
+
+    @Setup
+    public void setUp() {
+        decimalPostings = new Money[POSTINGS];
+        minorUnitPostings = new MinorUnitMoney[POSTINGS];
+        for (int i = 0; i < POSTINGS; i++) {
+            Money amount = Money.of(BigDecimal.valueOf(100 + i, 2));
+            decimalPostings[i] = amount;
+            minorUnitPostings[i] = MinorUnitMoney.fromMoney(amount);
+        }
+    }
+
+    @Benchmark
+    public Money bigDecimalRecord() {
+        Money balance = Money.ZERO;
+        for (Money amount : decimalPostings) {
+            balance = balance.add(amount);
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public MinorUnitMoney minorUnitRecord() {
+        MinorUnitMoney balance = MinorUnitMoney.ZERO;
+        for (MinorUnitMoney amount : minorUnitPostings) {
+            balance = balance.add(amount);
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public long minorUnitAccumulator() {
+        MinorUnitMoney.Accumulator balance = new MinorUnitMoney.Accumulator(MinorUnitMoney.TWD);
+        for (MinorUnitMoney amount : minorUnitPostings) {
+            balance.add(amount);
+        }
+        return balance.minorUnits();
+    }
+
+    @Test
+    void runBenchmarks() throws Exception {
+        new Runner(new OptionsBuilder()
+            .include(MoneyArithmeticBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
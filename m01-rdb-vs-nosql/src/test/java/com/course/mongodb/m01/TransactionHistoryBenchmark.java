@@ -0,0 +1,144 @@
+package com.course.mongodb.m01;
+
+import com.course.mongodb.m01.domain.BankAccount;
+import com.course.mongodb.m01.domain.Money;
+import com.course.mongodb.m01.domain.Transaction;
+import com.course.mongodb.m01.domain.TransactionBucket;
+import com.course.mongodb.m01.domain.TransactionType;
+import com.course.mongodb.m01.repository.BankAccountRepository;
+import com.course.mongodb.m01.repository.TransactionBucketRepository;
+import com.course.mongodb.m01.service.AccountService;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tracks account document size, deposit latency and round trips per deposit
+ * as history grows, for an unbounded embedded list versus the recent window
+ * plus transaction buckets.
+ */
+@SpringBootTest
+@Tag("benchmark")
+class TransactionHistoryBenchmark extends MongoIntegrationTest {
+
+    private static final int ROUNDS = 10;
+    private static final int DEPOSITS_PER_ROUND = 1_000;
+
+    // Commands sent by the thread timing a round, i.e. the round trips on
+    // the request path; the scheduled history drain runs on its own thread.
+    private static final AtomicLong roundTrips = new AtomicLong();
+    private static volatile Thread measured;
+
+    @TestConfiguration
+    static class RoundTripCounter {
+        @Bean
+        MongoClientSettingsBuilderCustomizer countRoundTrips() {
+            return builder -> builder.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if (Thread.currentThread() == measured) {
+                        roundTrips.incrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BankAccountRepository repository;
+
+    @Autowired
+    private TransactionBucketRepository bucketRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        bucketRepository.deleteAll();
+    }
+
+    @Test
+    void documentSizeAndLatencyStayFlatWithBuckets() {
+        accountService.createAccount("H-UNBOUNDED", "C-BENCH", Money.of(BigDecimal.ZERO));
+        accountService.createAccount("H-BUCKETED", "C-BENCH", Money.of(BigDecimal.ZERO));
+
+        System.out.printf("%8s %18s %18s %18s %18s %18s %18s%n", "history",
+            "unbounded bytes", "unbounded us/op", "unbounded rt/op", "bucketed bytes", "bucketed us/op", "bucketed rt/op");
+        int bucketedSize = 0;
+        double bucketedRoundTrips = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            Round unbounded = timeRound(this::unboundedDeposit, "H-UNBOUNDED");
+            Round bucketed = timeRound(
+                accountNumber -> accountService.deposit(accountNumber, Money.of(BigDecimal.ONE)), "H-BUCKETED");
+            // Measured once the drain has caught up, as between bursts.
+            accountService.drainPendingHistory();
+            bucketedSize = documentSize("H-BUCKETED");
+            bucketedRoundTrips = bucketed.roundTrips();
+            System.out.printf("%8d %18d %18.1f %18.2f %18d %18.1f %18.2f%n", round * DEPOSITS_PER_ROUND,
+                documentSize("H-UNBOUNDED"), unbounded.micros(), unbounded.roundTrips(),
+                bucketedSize, bucketed.micros(), bucketed.roundTrips());
+        }
+
+        assertThat(bucketRepository.count())
+            .isEqualTo((long) Math.ceil((double) ROUNDS * DEPOSITS_PER_ROUND / TransactionBucket.MAX_SIZE));
+        assertThat(bucketedSize).isLessThan(documentSize("H-UNBOUNDED"));
+        assertThat(bucketedRoundTrips).isEqualTo(1.0);
+    }
+
+    private record Round(double micros, double roundTrips) {
+    }
+
+    // Atomic deposit without the $slice window, i.e. history kept only in the account document.
+    private void unboundedDeposit(String accountNumber) {
+        Money amount = Money.of(BigDecimal.ONE);
+        mongoTemplate.updateFirst(
+            Query.query(Criteria.where("accountNumber").is(accountNumber)),
+            new Update().inc("balance.amount", amount.amount())
+                .push("transactions", Transaction.create(accountNumber, amount, TransactionType.DEPOSIT)),
+            BankAccount.class);
+    }
+
+    private Round timeRound(Consumer<String> deposit, String accountNumber) {
+        roundTrips.set(0);
+        measured = Thread.currentThread();
+        long start = System.nanoTime();
+        for (int i = 0; i < DEPOSITS_PER_ROUND; i++) {
+            deposit.accept(accountNumber);
+        }
+        long elapsed = System.nanoTime() - start;
+        measured = null;
+        return new Round(elapsed / 1_000.0 / DEPOSITS_PER_ROUND, roundTrips.get() / (double) DEPOSITS_PER_ROUND);
+    }
+
+    private int documentSize(String accountNumber) {
+        Document result = mongoTemplate.getCollection("bank_accounts").aggregate(List.of(
+            new Document("$match", new Document("accountNumber", accountNumber)),
+            new Document("$project", new Document("size", new Document("$bsonSize", "$$ROOT")))
+        )).first();
+        return result.getInteger("size");
+    }
+}
@@ -1,7 +1,10 @@
 package com.course.mongodb.m02.domain;
 
+import com.course.mongodb.m02.search.SearchTokens;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import java.util.List;
 
 @Document(collection = "products")
 public class Product {
@@ -11,11 +14,24 @@ public class Product {
     private Double price;
     private String category;
 
+    // SearchTokens.normalize(name); searchByName confirms trigram candidates
+    // against this rather than the raw name.
+    private String normalizedName;
+
+    @Indexed
+    private List<String> namePrefixes;
+
+    @Indexed
+    private List<String> nameGrams;
+
+    // SearchTokens.VERSION the three fields above were built with.
+    private Integer searchTokensVersion;
+
     public Product() {
     }
 
     public Product(String name, Double price, String category) {
-        this.name = name;
+        setName(name);
         this.price = price;
         this.category = category;
     }
@@ -23,9 +39,19 @@ public class Product {
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) {
+        this.name = name;
+        this.normalizedName = SearchTokens.normalize(name);
+        this.namePrefixes = SearchTokens.prefixes(name);
+        this.nameGrams = SearchTokens.grams(name);
+        this.searchTokensVersion = SearchTokens.VERSION;
+    }
     public Double getPrice() { return price; }
     public void setPrice(Double price) { this.price = price; }
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
+    public String getNormalizedName() { return normalizedName; }
+    public List<String> getNamePrefixes() { return namePrefixes; }
+    public List<String> getNameGrams() { return nameGrams; }
+    public Integer getSearchTokensVersion() { return searchTokensVersion; }
 }
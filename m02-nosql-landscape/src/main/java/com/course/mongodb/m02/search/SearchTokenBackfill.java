@@ -0,0 +1,24 @@
+package com.course.mongodb.m02.search;
+
+import com.course.mongodb.m02.service.ProductService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Products saved before the search fields existed are invisible to
+// autocomplete and searchByName until their tokens are built, and ones
+// built by an older SearchTokens.VERSION may not match new queries.
+@Component
+public class SearchTokenBackfill {
+
+    private final ProductService productService;
+
+    public SearchTokenBackfill(ProductService productService) {
+        this.productService = productService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        productService.rebuildSearchTokens();
+    }
+}
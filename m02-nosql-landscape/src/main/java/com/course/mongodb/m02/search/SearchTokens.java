@@ -0,0 +1,57 @@
+package com.course.mongodb.m02.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Builds the token arrays stored on {@code Product} so that name searches can
+ * use a multikey index instead of an unanchored regex.
+ */
+public final class SearchTokens {
+
+    public static final int GRAM_SIZE = 3;
+    public static final int MAX_PREFIX_LENGTH = 15;
+    // Bump whenever normalize, prefixes or grams change, so that
+    // rebuildSearchTokens rewrites tokens built the old way.
+    public static final int VERSION = 1;
+
+    private SearchTokens() {
+    }
+
+    // Lower-cased, accents stripped ("Café" -> "cafe"), whitespace collapsed.
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD).replaceAll("\\p{M}+", "");
+        String folded = Normalizer.normalize(decomposed, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return folded.trim().replaceAll("\\s+", " ");
+    }
+
+    // Every prefix of every word, e.g. "usb hub" -> u, us, usb, h, hu, hub.
+    public static List<String> prefixes(String text) {
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (String word : normalize(text).split(" ")) {
+            int max = Math.min(word.length(), MAX_PREFIX_LENGTH);
+            for (int length = 1; length <= max; length++) {
+                prefixes.add(word.substring(0, length));
+            }
+        }
+        return new ArrayList<>(prefixes);
+    }
+
+    // Distinct trigrams of the whole normalized name, spaces included, so
+    // that substrings spanning words can be matched too.
+    public static List<String> grams(String text) {
+        String normalized = normalize(text);
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_SIZE));
+        }
+        return new ArrayList<>(grams);
+    }
+}
@@ -0,0 +1,123 @@
+package com.course.mongodb.m02.service;
+
+import com.course.mongodb.m02.domain.Product;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Service
+public class CategoryFacetService {
+
+    private final MongoTemplate mongoTemplate;
+    private volatile ConcurrentHashMap<String, Long> counts;
+    // Deltas seen while a refresh is running; replayed onto the fresh map.
+    private ConcurrentHashMap<String, Long> pending;
+    // Writers share the read lock; refresh takes the write lock to start
+    // recording and to swap, so no delta falls between the two maps.
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    public CategoryFacetService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Served from memory; the first call loads the counts with one $group.
+    public Map<String, Long> categoryCounts() {
+        return Map.copyOf(loadedCounts());
+    }
+
+    public long countFor(String category) {
+        return loadedCounts().getOrDefault(category, 0L);
+    }
+
+    // Recomputes all counts server-side and swaps them in. Writes that land
+    // while the aggregation runs are recorded and replayed after the swap;
+    // one the aggregation already saw is counted twice until the next refresh.
+    public synchronized void refresh() {
+        swapLock.writeLock().lock();
+        try {
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        ConcurrentHashMap<String, Long> fresh = new ConcurrentHashMap<>();
+        try {
+            Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("category").count().as("count")
+            );
+            for (Document row : mongoTemplate.aggregate(aggregation, Product.class, Document.class)) {
+                String category = row.getString("_id");
+                if (category != null) {
+                    fresh.put(category, ((Number) row.get("count")).longValue());
+                }
+            }
+        } catch (RuntimeException e) {
+            swapLock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            throw e;
+        }
+        swapLock.writeLock().lock();
+        try {
+            pending.forEach((category, delta) -> apply(fresh, category, delta));
+            pending = null;
+            counts = fresh;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    void onCreated(String category) {
+        record(category, 1L);
+    }
+
+    void onDeleted(String category) {
+        record(category, -1L);
+    }
+
+    private void record(String category, long delta) {
+        if (category == null) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            ConcurrentHashMap<String, Long> current = counts;
+            if (current != null) {
+                apply(current, category, delta);
+            }
+            if (pending != null) {
+                pending.merge(category, delta, Long::sum);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static void apply(ConcurrentHashMap<String, Long> target, String category, long delta) {
+        target.compute(category, (key, count) -> {
+            long updated = (count == null ? 0L : count) + delta;
+            return updated > 0 ? updated : null;
+        });
+    }
+
+    private ConcurrentHashMap<String, Long> loadedCounts() {
+        ConcurrentHashMap<String, Long> current = counts;
+        if (current == null) {
+            synchronized (this) {
+                if (counts == null) {
+                    refresh();
+                }
+                current = counts;
+            }
+        }
+        return current;
+    }
+}
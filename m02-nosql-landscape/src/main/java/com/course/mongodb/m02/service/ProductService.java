@@ -2,27 +2,63 @@ package com.course.mongodb.m02.service;
 
 import com.course.mongodb.m02.domain.Product;
 import com.course.mongodb.m02.repository.ProductRepository;
+import com.course.mongodb.m02.search.SearchTokens;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
 
+    private static final int DEFAULT_STREAM_BATCH_SIZE = 500;
+    private static final int REINDEX_BATCH_SIZE = 1_000;
+
     private final ProductRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final CategoryFacetService facetService;
 
-    public ProductService(ProductRepository repository) {
+    public ProductService(ProductRepository repository, MongoTemplate mongoTemplate,
+            CategoryFacetService facetService) {
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.facetService = facetService;
     }
 
     public Product createProduct(String name, Double price, String category) {
         Product product = new Product(name, price, category);
-        return repository.save(product);
+        Product saved = repository.save(product);
+        facetService.onCreated(saved.getCategory());
+        return saved;
     }
 
     public List<Product> findAll() {
         return repository.findAll();
     }
 
+    public Stream<Product> streamAll() {
+        return streamAll(DEFAULT_STREAM_BATCH_SIZE);
+    }
+
+    public Stream<Product> streamAll(int batchSize) {
+        return mongoTemplate.stream(new Query().cursorBatchSize(batchSize), Product.class);
+    }
+
+    public List<Product> findPageAfter(String lastSeenId, int pageSize) {
+        return lastSeenId == null
+            ? repository.findAllByOrderByIdAsc(Limit.of(pageSize))
+            : repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, Limit.of(pageSize));
+    }
+
     public Product findById(String id) {
         return repository.findById(id).orElse(null);
     }
@@ -31,7 +67,77 @@ public class ProductService {
         return repository.findByCategory(category);
     }
 
+    // Every typed word must be a prefix of some word in the name.
+    public List<Product> autocomplete(String text, int limit) {
+        List<String> words = Arrays.stream(SearchTokens.normalize(text).split(" "))
+            .filter(word -> !word.isEmpty())
+            .map(word -> word.length() > SearchTokens.MAX_PREFIX_LENGTH
+                ? word.substring(0, SearchTokens.MAX_PREFIX_LENGTH)
+                : word)
+            .toList();
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        Query query = Query.query(Criteria.where("namePrefixes").all(words))
+            .with(Sort.by("name"))
+            .limit(limit);
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    // The trigram index narrows the candidates; the regex only checks those,
+    // against the normalized name the grams were built from. Terms shorter
+    // than a trigram fall back to word-prefix matching.
+    public List<Product> searchByName(String text, int limit) {
+        String normalized = SearchTokens.normalize(text);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        Criteria criteria = normalized.length() < SearchTokens.GRAM_SIZE
+            ? Criteria.where("namePrefixes").is(normalized)
+            : Criteria.where("nameGrams").all(SearchTokens.grams(normalized))
+                .and("normalizedName").regex(Pattern.quote(normalized));
+        return mongoTemplate.find(Query.query(criteria).limit(limit), Product.class);
+    }
+
+    // Rebuilds tokens for products written before the search fields existed
+    // or with an older SearchTokens.VERSION. Runs at startup, see
+    // SearchTokenBackfill.
+    public long rebuildSearchTokens() {
+        Query query = Query.query(Criteria.where("searchTokensVersion").ne(SearchTokens.VERSION));
+        query.fields().include("name");
+        long updated = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        int pending = 0;
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                bulk.updateOne(Query.query(Criteria.where("id").is(product.getId())), new Update()
+                    .set("normalizedName", SearchTokens.normalize(product.getName()))
+                    .set("namePrefixes", SearchTokens.prefixes(product.getName()))
+                    .set("nameGrams", SearchTokens.grams(product.getName()))
+                    .set("searchTokensVersion", SearchTokens.VERSION));
+                if (++pending == REINDEX_BATCH_SIZE) {
+                    updated += bulk.execute().getModifiedCount();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            updated += bulk.execute().getModifiedCount();
+        }
+        return updated;
+    }
+
+    // findAndRemove hands back the deleted product so its category count can
+    // be decremented without a separate read.
     public void deleteById(String id) {
-        repository.deleteById(id);
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().include("category");
+        Product removed = mongoTemplate.findAndRemove(query, Product.class);
+        if (removed != null) {
+            facetService.onDeleted(removed.getCategory());
+        }
     }
 }
@@ -0,0 +1,88 @@
+package com.course.mongodb.m02;
+
+import com.course.mongodb.m02.domain.Product;
+import com.course.mongodb.m02.repository.ProductRepository;
+import com.course.mongodb.m02.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Regex-based findByNameContaining versus the prefix/trigram token indexes on
+ * a one-million-product catalog. The catalog is generated once and reused.
+ */
+@SpringBootTest
+@Tag("benchmark")
+public class ProductSearchBenchmark {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int REPETITIONS = 20;
+    private static final String[] ADJECTIVES = {
+        "Wireless", "Portable", "Compact", "Ergonomic", "Smart", "Vintage", "Rugged", "Premium", "Foldable", "Silent"
+    };
+    private static final String[] NOUNS = {
+        "Keyboard", "Headphones", "Lamp", "Backpack", "Blender", "Monitor", "Speaker", "Charger", "Kettle", "Tripod"
+    };
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    public void seed() {
+        if (repository.count() >= PRODUCTS) {
+            return;
+        }
+        repository.deleteAll();
+        Random random = new Random(42);
+        List<Product> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < PRODUCTS; i++) {
+            String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                + NOUNS[random.nextInt(NOUNS.length)] + " " + Integer.toString(i, 36);
+            batch.add(new Product(name, 10.0 + random.nextInt(1000), "Category-" + random.nextInt(50)));
+            if (batch.size() == INSERT_BATCH) {
+                mongoTemplate.insert(batch, Product.class);
+                batch.clear();
+            }
+        }
+        mongoTemplate.insert(batch, Product.class);
+    }
+
+    @Test
+    public void compareRegexWithTokenIndex() {
+        String[] terms = {"kbz", "ortable lam", "zz9"};
+        System.out.printf("%-14s %16s %16s %16s%n", "term", "regex ms", "grams ms", "autocomplete ms");
+        for (String term : terms) {
+            double regex = time(() -> repository.findByNameContaining(term).size());
+            double grams = time(() -> productService.searchByName(term, 20).size());
+            double prefixes = time(() -> productService.autocomplete(term, 20).size());
+            System.out.printf("%-14s %16.2f %16.2f %16.2f%n", term, regex, grams, prefixes);
+        }
+        assertFalse(productService.autocomplete("wireless key", 20).isEmpty());
+    }
+
+    private double time(Supplier<Integer> search) {
+        search.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < REPETITIONS; i++) {
+            search.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / REPETITIONS;
+    }
+}
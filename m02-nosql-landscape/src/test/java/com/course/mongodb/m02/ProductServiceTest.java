@@ -1,19 +1,34 @@
 package com.course.mongodb.m02;
 
 import com.course.mongodb.m02.domain.Product;
+import com.course.mongodb.m02.search.SearchTokens;
+import com.course.mongodb.m02.service.CategoryFacetService;
 import com.course.mongodb.m02.service.ProductService;
+import org.bson.Document;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
-public class M02ApplicationTests {
+public class ProductServiceTest {
 
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private CategoryFacetService facetService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Test
     public void contextLoads() {
     }
@@ -35,4 +50,106 @@ public class M02ApplicationTests {
         var products = productService.findByCategory("Electronics");
         assertTrue(products.size() >= 2);
     }
+
+    @Test
+    public void testAutocomplete() {
+        productService.createProduct("Mechanical Keyboard", 120.00, "Peripherals");
+        productService.createProduct("Keychain Light", 9.99, "Accessories");
+
+        var names = productService.autocomplete("mech key", 10).stream().map(Product::getName).toList();
+        assertTrue(names.contains("Mechanical Keyboard"));
+        assertFalse(names.contains("Keychain Light"));
+    }
+
+    @Test
+    public void testSearchByNameContaining() {
+        productService.createProduct("Wireless Headphones", 199.99, "Audio");
+        productService.createProduct("Wired Earbuds", 29.99, "Audio");
+
+        var names = productService.searchByName("ELESS HEAD", 10).stream().map(Product::getName).toList();
+        assertTrue(names.contains("Wireless Headphones"));
+        assertFalse(names.contains("Wired Earbuds"));
+    }
+
+    @Test
+    public void testSearchByNameIgnoresAccentsAndSpacing() {
+        String suffix = " " + System.nanoTime();
+        productService.createProduct("Café   Crème" + suffix, 4.50, "Drinks");
+
+        var names = productService.searchByName("cafe creme" + suffix, 10).stream().map(Product::getName).toList();
+        assertEquals(List.of("Café   Crème" + suffix), names);
+        assertEquals(1, productService.searchByName("CAFÉ CRÈME" + suffix, 10).size());
+    }
+
+    @Test
+    public void testRebuildSearchTokensBackfillsLegacyProducts() {
+        String name = "Legacy Lamp " + System.nanoTime();
+        mongoTemplate.getCollection("products").insertOne(new Document("name", name).append("category", "Lighting"));
+
+        assertTrue(productService.rebuildSearchTokens() >= 1);
+        var names = productService.searchByName(name.substring(3), 10).stream().map(Product::getName).toList();
+        assertEquals(List.of(name), names);
+    }
+
+    @Test
+    public void testRebuildSearchTokensRebuildsOutdatedVersions() {
+        String name = "Stale Lamp " + System.nanoTime();
+        mongoTemplate.getCollection("products").insertOne(new Document("name", name)
+            .append("category", "Lighting")
+            .append("normalizedName", name)
+            .append("namePrefixes", List.of())
+            .append("nameGrams", List.of())
+            .append("searchTokensVersion", SearchTokens.VERSION - 1));
+
+        assertTrue(productService.rebuildSearchTokens() >= 1);
+        Product rebuilt = productService.searchByName(name.toLowerCase(), 10).get(0);
+        assertEquals(SearchTokens.normalize(name), rebuilt.getNormalizedName());
+        assertEquals(SearchTokens.VERSION, rebuilt.getSearchTokensVersion());
+    }
+
+    @Test
+    public void testCategoryCountsFollowCreateAndDelete() {
+        String category = "Facet-" + System.nanoTime();
+        long before = facetService.countFor(category);
+
+        Product first = productService.createProduct("Desk", 250.00, category);
+        productService.createProduct("Chair", 120.00, category);
+        assertEquals(before + 2, facetService.countFor(category));
+
+        productService.deleteById(first.getId());
+        assertEquals(before + 1, facetService.countFor(category));
+
+        facetService.refresh();
+        assertEquals(before + 1, facetService.categoryCounts().get(category));
+    }
+
+    @Test
+    public void testFindPageAfter() {
+        Product first = productService.createProduct("Page One", 1.00, "Paging");
+        Product second = productService.createProduct("Page Two", 2.00, "Paging");
+
+        List<String> seen = new ArrayList<>();
+        String lastSeenId = null;
+        List<Product> page;
+        do {
+            page = productService.findPageAfter(lastSeenId, 2);
+            page.forEach(item -> seen.add(item.getId()));
+            if (!page.isEmpty()) {
+                lastSeenId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 2);
+
+        assertTrue(seen.contains(first.getId()));
+        assertTrue(seen.contains(second.getId()));
+        assertEquals(seen.size(), new HashSet<>(seen).size());
+    }
+
+    @Test
+    public void testStreamAll() {
+        Product created = productService.createProduct("Stream Me", 3.00, "Paging");
+
+        try (Stream<Product> items = productService.streamAll(2)) {
+            assertTrue(items.anyMatch(item -> item.getId().equals(created.getId())));
+        }
+    }
 }
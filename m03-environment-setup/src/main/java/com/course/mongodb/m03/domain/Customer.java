@@ -1,7 +1,9 @@
 package com.course.mongodb.m03.domain;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import java.util.Locale;
 
 @Document(collection = "customers")
 public class Customer {
@@ -10,12 +12,19 @@ public class Customer {
     private String name;
     private String email;
 
+    @Indexed(unique = true, sparse = true)
+    private String normalizedEmail;
+
     public Customer() {
     }
 
     public Customer(String name, String email) {
         this.name = name;
-        this.email = email;
+        setEmail(email);
+    }
+
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
     }
 
     public String getId() { return id; }
@@ -23,5 +32,9 @@ public class Customer {
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) {
+        this.email = email;
+        this.normalizedEmail = normalizeEmail(email);
+    }
+    public String getNormalizedEmail() { return normalizedEmail; }
 }
@@ -0,0 +1,264 @@
+package com.course.mongodb.m03.importer;
+
+import com.course.mongodb.m03.domain.Customer;
+import com.course.mongodb.m03.service.CustomerService;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.BsonInvalidOperationException;
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Streams a CSV (header with {@code name} and {@code email}) or NDJSON file
+ * into {@code customers}. The reader thread only slices lines into batches;
+ * parsing, validation and the unordered insertMany run on virtual threads,
+ * with a fixed number of batches in flight so memory does not grow with the
+ * file size.
+ */
+@Service
+public class CustomerImportService {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int MAX_REPORTED_ERRORS = 1_000;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+
+    private final MongoTemplate mongoTemplate;
+    private final CustomerService customerService;
+    private final int maxBatchesInFlight = Runtime.getRuntime().availableProcessors() * 2;
+
+    public CustomerImportService(MongoTemplate mongoTemplate, CustomerService customerService) {
+        this.mongoTemplate = mongoTemplate;
+        this.customerService = customerService;
+    }
+
+    public ImportResult importFile(Path file, ImportFormat format) {
+        return importFile(file, format, new ImportProgress());
+    }
+
+    public ImportResult importFile(Path file, ImportFormat format, ImportProgress progress) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Customer.class));
+        Queue<ImportResult.RowError> errors = new ConcurrentLinkedQueue<>();
+        AtomicInteger reportedErrors = new AtomicInteger();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Semaphore inFlight = new Semaphore(maxBatchesInFlight);
+        progress.start();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            RowParser parser = format == ImportFormat.CSV ? CsvRowParser.fromHeader(reader.readLine()) : new JsonRowParser();
+            long line = format == ImportFormat.CSV ? 1 : 0;
+            List<RawRow> batch = new ArrayList<>(BATCH_SIZE);
+            String text;
+            while ((text = reader.readLine()) != null && failure.get() == null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                progress.rowRead();
+                batch.add(new RawRow(line, text));
+                if (batch.size() == BATCH_SIZE) {
+                    submit(executor, inFlight, failure, batch, parser, collection, progress, errors, reportedErrors);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(executor, inFlight, failure, batch, parser, collection, progress, errors, reportedErrors);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + file, e);
+        } finally {
+            progress.finish();
+        }
+
+        if (failure.get() != null) {
+            throw new IllegalStateException("Customer import failed", failure.get());
+        }
+        return new ImportResult(progress.getRowsRead(), progress.getInserted(), progress.getDuplicates(),
+            progress.getInvalid(), progress.getInsertedPerSecond(), List.copyOf(errors));
+    }
+
+    private void submit(ExecutorService executor, Semaphore inFlight, AtomicReference<RuntimeException> failure,
+            List<RawRow> batch, RowParser parser, MongoCollection<Document> collection,
+            ImportProgress progress, Queue<ImportResult.RowError> errors, AtomicInteger reportedErrors) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Customer import interrupted", e);
+        }
+        executor.execute(() -> {
+            try {
+                processBatch(batch, parser, collection, progress, errors, reportedErrors);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void processBatch(List<RawRow> rows, RowParser parser, MongoCollection<Document> collection,
+            ImportProgress progress, Queue<ImportResult.RowError> errors, AtomicInteger reportedErrors) {
+        List<Document> documents = new ArrayList<>(rows.size());
+        List<Long> lines = new ArrayList<>(rows.size());
+        for (RawRow row : rows) {
+            String[] fields;
+            try {
+                fields = parser.parse(row.text());
+            } catch (IllegalArgumentException | JsonParseException | BsonInvalidOperationException e) {
+                reject(progress, errors, reportedErrors, row.line(), "unparseable row");
+                continue;
+            }
+            String name = fields[0] == null ? "" : fields[0].trim();
+            String email = fields[1] == null ? "" : fields[1].trim();
+            if (name.isEmpty() || !EMAIL.matcher(email).matches()) {
+                reject(progress, errors, reportedErrors, row.line(), "missing name or invalid email");
+                continue;
+            }
+            documents.add(new Document("name", name)
+                .append("email", email)
+                .append("normalizedEmail", Customer.normalizeEmail(email))
+                .append("_class", Customer.class.getName()));
+            lines.add(row.line());
+        }
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> failed = new HashSet<>();
+        try {
+            collection.insertMany(documents, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                failed.add(error.getIndex());
+                long line = lines.get(error.getIndex());
+                if (error.getCode() == DUPLICATE_KEY) {
+                    progress.duplicate();
+                    report(errors, reportedErrors, line, "duplicate email");
+                } else {
+                    reject(progress, errors, reportedErrors, line, error.getMessage());
+                }
+            }
+        }
+
+        for (int i = 0; i < documents.size(); i++) {
+            if (!failed.contains(i)) {
+                customerService.registerEmail(documents.get(i).getString("normalizedEmail"));
+            }
+        }
+        progress.inserted(documents.size() - failed.size());
+    }
+
+    private void reject(ImportProgress progress, Queue<ImportResult.RowError> errors, AtomicInteger reportedErrors,
+            long line, String reason) {
+        progress.invalid();
+        report(errors, reportedErrors, line, reason);
+    }
+
+    private void report(Queue<ImportResult.RowError> errors, AtomicInteger reportedErrors, long line, String reason) {
+        if (reportedErrors.getAndIncrement() < MAX_REPORTED_ERRORS) {
+            errors.add(new ImportResult.RowError(line, reason));
+        }
+    }
+
+    private record RawRow(long line, String text) {
+    }
+
+    private interface RowParser {
+        // Returns {name, email}.
+        String[] parse(String text);
+    }
+
+    private record JsonRowParser() implements RowParser {
+        @Override
+        public String[] parse(String text) {
+            Document document = Document.parse(text);
+            return new String[] {
+                Objects.toString(document.get("name"), null),
+                Objects.toString(document.get("email"), null)
+            };
+        }
+    }
+
+    private record CsvRowParser(int nameColumn, int emailColumn) implements RowParser {
+        static CsvRowParser fromHeader(String header) {
+            if (header == null) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+            List<String> columns = splitCsv(header).stream().map(c -> c.trim().toLowerCase(Locale.ROOT)).toList();
+            int name = columns.indexOf("name");
+            int email = columns.indexOf("email");
+            if (name < 0 || email < 0) {
+                throw new IllegalArgumentException("CSV header must contain name and email columns");
+            }
+            return new CsvRowParser(name, email);
+        }
+
+        @Override
+        public String[] parse(String text) {
+            List<String> fields = splitCsv(text);
+            if (fields.size() <= Math.max(nameColumn, emailColumn)) {
+                throw new IllegalArgumentException("Missing columns");
+            }
+            return new String[] {fields.get(nameColumn), fields.get(emailColumn)};
+        }
+
+        // Single-line RFC 4180: quoted fields may contain commas and "" escapes.
+        static List<String> splitCsv(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quote");
+            }
+            fields.add(current.toString());
+            return fields;
+        }
+    }
+}
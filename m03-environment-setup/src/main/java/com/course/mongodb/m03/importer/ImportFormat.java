@@ -0,0 +1,6 @@
+package com.course.mongodb.m03.importer;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,46 @@
+package com.course.mongodb.m03.importer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters for a running import; safe to poll from another thread.
+ */
+public class ImportProgress {
+
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private volatile long startNanos = System.nanoTime();
+    private volatile long endNanos;
+
+    void start() {
+        startNanos = System.nanoTime();
+        endNanos = 0;
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    void rowRead() { rowsRead.increment(); }
+    void inserted(long count) { inserted.add(count); }
+    void duplicate() { duplicates.increment(); }
+    void invalid() { invalid.increment(); }
+
+    public long getRowsRead() { return rowsRead.sum(); }
+    public long getInserted() { return inserted.sum(); }
+    public long getDuplicates() { return duplicates.sum(); }
+    public long getInvalid() { return invalid.sum(); }
+    public boolean isFinished() { return endNanos != 0; }
+
+    public double getElapsedSeconds() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000_000.0;
+    }
+
+    public double getInsertedPerSecond() {
+        double elapsed = getElapsedSeconds();
+        return elapsed == 0 ? 0 : getInserted() / elapsed;
+    }
+}
@@ -0,0 +1,15 @@
+package com.course.mongodb.m03.importer;
+
+import java.util.List;
+
+public record ImportResult(
+    long rowsRead,
+    long inserted,
+    long duplicates,
+    long invalid,
+    double insertedPerSecond,
+    List<RowError> errors
+) {
+    public record RowError(long line, String reason) {
+    }
+}
@@ -1,10 +1,16 @@
 package com.course.mongodb.m03.repository;
 
 import com.course.mongodb.m03.domain.Customer;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import java.util.List;
 import java.util.Optional;
 
 public interface CustomerRepository extends MongoRepository<Customer, String> {
     Optional<Customer> findByEmail(String email);
+    Optional<Customer> findByNormalizedEmail(String normalizedEmail);
+    boolean existsByNormalizedEmail(String normalizedEmail);
     Optional<Customer> findByNameContaining(String name);
+    List<Customer> findAllByOrderByIdAsc(Limit limit);
+    List<Customer> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
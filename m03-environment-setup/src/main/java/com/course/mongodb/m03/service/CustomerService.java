@@ -1,37 +1,161 @@
 package com.course.mongodb.m03.service;
 
+import com.course.mongodb.m03.dedup.EmailBloomFilter;
 import com.course.mongodb.m03.domain.Customer;
 import com.course.mongodb.m03.repository.CustomerRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class CustomerService {
 
+    private static final int DEFAULT_STREAM_BATCH_SIZE = 500;
+    private static final long MIN_FILTER_CAPACITY = 1_000_000;
+    private static final double FILTER_FALSE_POSITIVE_RATE = 0.01;
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
     private final CustomerRepository repository;
+    private final MongoTemplate mongoTemplate;
+    // Per instance: it only learns emails written through this process, so
+    // another writer's inserts look like misses. It therefore only lets
+    // createCustomer skip its pre-check; the unique index stays the authority.
+    private volatile EmailBloomFilter emailFilter;
 
-    public CustomerService(CustomerRepository repository) {
+    public CustomerService(CustomerRepository repository, MongoTemplate mongoTemplate) {
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public Customer createCustomer(String name, String email) {
-        Customer customer = new Customer(name, email);
-        return repository.save(customer);
+        if (mightBeRegistered(email) && emailExists(email)) {
+            throw new IllegalArgumentException("Email already registered: " + email);
+        }
+        Customer saved;
+        try {
+            saved = repository.save(new Customer(name, email));
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Email already registered: " + email, e);
+        }
+        registerEmail(saved.getNormalizedEmail());
+        return saved;
+    }
+
+    public boolean emailExists(String email) {
+        String normalized = Customer.normalizeEmail(email);
+        return normalized != null && repository.existsByNormalizedEmail(normalized);
+    }
+
+    // A definite miss skips the indexed pre-check; the unique index still
+    // rejects an email this instance has not seen.
+    private boolean mightBeRegistered(String email) {
+        String normalized = Customer.normalizeEmail(email);
+        EmailBloomFilter filter = emailFilter;
+        return normalized != null && (filter == null || filter.mightContain(normalized));
+    }
+
+    // Streams only the normalized emails, sizing the filter for twice the
+    // current customer count so the false-positive rate holds as it grows.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildEmailFilter() {
+        backfillNormalizedEmails();
+        long capacity = Math.max(MIN_FILTER_CAPACITY, repository.count() * 2);
+        EmailBloomFilter filter = new EmailBloomFilter(capacity, FILTER_FALSE_POSITIVE_RATE);
+        Query query = new Query().cursorBatchSize(DEFAULT_STREAM_BATCH_SIZE);
+        query.fields().include("email").include("normalizedEmail");
+        try (Stream<Customer> customers = mongoTemplate.stream(query, Customer.class)) {
+            customers.forEach(customer -> filter.put(customer.getNormalizedEmail() != null
+                ? customer.getNormalizedEmail()
+                : Customer.normalizeEmail(customer.getEmail())));
+        }
+        emailFilter = filter;
+    }
+
+    // Customers saved before normalizedEmail existed are invisible to
+    // findByEmail and the unique index. Two legacy rows that normalize to the
+    // same email are left as they are for manual merging.
+    public long backfillNormalizedEmails() {
+        Query query = Query.query(Criteria.where("normalizedEmail").exists(false).and("email").ne(null));
+        query.fields().include("email");
+        long updated = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Customer.class);
+        int pending = 0;
+        try (Stream<Customer> customers = mongoTemplate.stream(query, Customer.class)) {
+            Iterator<Customer> iterator = customers.iterator();
+            while (iterator.hasNext()) {
+                Customer customer = iterator.next();
+                bulk.updateOne(Query.query(Criteria.where("id").is(customer.getId())),
+                    Update.update("normalizedEmail", Customer.normalizeEmail(customer.getEmail())));
+                if (++pending == BACKFILL_BATCH_SIZE) {
+                    updated += executeBackfill(bulk);
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Customer.class);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            updated += executeBackfill(bulk);
+        }
+        return updated;
+    }
+
+    private static long executeBackfill(BulkOperations bulk) {
+        try {
+            return bulk.execute().getModifiedCount();
+        } catch (BulkOperationException e) {
+            return e.getResult().getModifiedCount();
+        }
     }
 
     public List<Customer> findAll() {
         return repository.findAll();
     }
 
+    public Stream<Customer> streamAll() {
+        return streamAll(DEFAULT_STREAM_BATCH_SIZE);
+    }
+
+    public Stream<Customer> streamAll(int batchSize) {
+        return mongoTemplate.stream(new Query().cursorBatchSize(batchSize), Customer.class);
+    }
+
+    public List<Customer> findPageAfter(String lastSeenId, int pageSize) {
+        return lastSeenId == null
+            ? repository.findAllByOrderByIdAsc(Limit.of(pageSize))
+            : repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, Limit.of(pageSize));
+    }
+
     public Customer findById(String id) {
         return repository.findById(id).orElse(null);
     }
 
     public Customer findByEmail(String email) {
-        return repository.findByEmail(email).orElse(null);
+        String normalized = Customer.normalizeEmail(email);
+        return normalized == null ? null : repository.findByNormalizedEmail(normalized).orElse(null);
     }
 
+    // Bloom filters cannot forget: a deleted email stays a "maybe" and costs
+    // an indexed pre-check on create until the next rebuild.
     public void deleteById(String id) {
         repository.deleteById(id);
     }
+
+    // Used by bulk writers that bypass createCustomer, e.g. the importer.
+    public void registerEmail(String normalizedEmail) {
+        EmailBloomFilter filter = emailFilter;
+        if (filter != null && normalizedEmail != null) {
+            filter.put(normalizedEmail);
+        }
+    }
 }
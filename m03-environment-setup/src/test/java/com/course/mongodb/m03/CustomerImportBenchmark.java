@@ -0,0 +1,63 @@
+package com.course.mongodb.m03;
+
+import com.course.mongodb.m03.importer.CustomerImportService;
+import com.course.mongodb.m03.importer.ImportFormat;
+import com.course.mongodb.m03.importer.ImportProgress;
+import com.course.mongodb.m03.importer.ImportResult;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Imports a generated one-million-row CSV and prints progress every second.
+ */
+@SpringBootTest
+@Tag("benchmark")
+public class CustomerImportBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    @Autowired
+    private CustomerImportService importService;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void importOneMillionCustomers() throws Exception {
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        Path file = tempDir.resolve("customers.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("name,email\n");
+            for (int i = 0; i < ROWS; i++) {
+                writer.write("Customer " + i + ",bench-" + run + "-" + i + "@example.com\n");
+            }
+        }
+
+        ImportProgress progress = new ImportProgress();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> System.out.printf("read=%d inserted=%d docs/s=%.0f%n",
+            progress.getRowsRead(), progress.getInserted(), progress.getInsertedPerSecond()), 1, 1, TimeUnit.SECONDS);
+        ImportResult result;
+        try {
+            result = importService.importFile(file, ImportFormat.CSV, progress);
+        } finally {
+            reporter.shutdownNow();
+        }
+
+        System.out.printf("imported %d rows in %.1f s: %.0f docs/s%n",
+            result.inserted(), progress.getElapsedSeconds(), result.insertedPerSecond());
+        assertEquals(ROWS, result.inserted());
+    }
+}
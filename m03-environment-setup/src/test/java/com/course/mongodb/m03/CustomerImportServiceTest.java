@@ -0,0 +1,85 @@
+package com.course.mongodb.m03;
+
+import com.course.mongodb.m03.importer.CustomerImportService;
+import com.course.mongodb.m03.importer.ImportFormat;
+import com.course.mongodb.m03.importer.ImportResult;
+import com.course.mongodb.m03.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class CustomerImportServiceTest {
+
+    @Autowired
+    private CustomerImportService importService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testImportCsvWithDuplicatesAndInvalidRows() throws Exception {
+        String suffix = Long.toString(System.nanoTime());
+        Path file = tempDir.resolve("customers.csv");
+        Files.writeString(file, String.join("\n",
+            "email,name",
+            "csv-a-" + suffix + "@example.com,Alice",
+            "\"csv-b-" + suffix + "@example.com\",\"Bob, Jr.\"",
+            "CSV-A-" + suffix + "@example.com,Alice Again",
+            "not-an-email,Carol",
+            ""));
+
+        ImportResult result = importService.importFile(file, ImportFormat.CSV);
+
+        assertEquals(4, result.rowsRead());
+        assertEquals(2, result.inserted());
+        assertEquals(1, result.duplicates());
+        assertEquals(1, result.invalid());
+        assertEquals(2, result.errors().size());
+        assertEquals("Bob, Jr.", customerService.findByEmail("csv-b-" + suffix + "@example.com").getName());
+        assertTrue(customerService.emailExists("csv-a-" + suffix + "@example.com"));
+    }
+
+    @Test
+    public void testImportNdjson() throws Exception {
+        String suffix = Long.toString(System.nanoTime());
+        Path file = tempDir.resolve("customers.ndjson");
+        Files.writeString(file, String.join("\n",
+            "{\"name\": \"Dave\", \"email\": \"json-d-" + suffix + "@example.com\"}",
+            "{\"name\": \"Eve\"",
+            "{\"name\": \"Frank\", \"email\": \"json-f-" + suffix + "@example.com\"}"));
+
+        ImportResult result = importService.importFile(file, ImportFormat.NDJSON);
+
+        assertEquals(3, result.rowsRead());
+        assertEquals(2, result.inserted());
+        assertEquals(1, result.invalid());
+        assertEquals(2, result.errors().get(0).line());
+    }
+
+    @Test
+    public void testImportNdjsonRejectsNonObjectLines() throws Exception {
+        String suffix = Long.toString(System.nanoTime());
+        Path file = tempDir.resolve("scalars.ndjson");
+        Files.writeString(file, String.join("\n",
+            "[1]",
+            "42",
+            "{\"name\": \"Grace\", \"email\": \"json-g-" + suffix + "@example.com\"}"));
+
+        ImportResult result = importService.importFile(file, ImportFormat.NDJSON);
+
+        assertEquals(3, result.rowsRead());
+        assertEquals(1, result.inserted());
+        assertEquals(2, result.invalid());
+        assertTrue(customerService.emailExists("json-g-" + suffix + "@example.com"));
+    }
+}
@@ -1,10 +1,18 @@
 package com.course.mongodb.m03;
 
+import com.course.mongodb.m03.dedup.EmailBloomFilter;
 import com.course.mongodb.m03.domain.Customer;
 import com.course.mongodb.m03.service.CustomerService;
+import org.bson.Document;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -14,24 +22,111 @@ public class CustomerServiceTest {
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Test
     public void contextLoads() {
     }
 
     @Test
     public void testCreateCustomer() {
-        Customer customer = customerService.createCustomer("John Doe", "john@example.com");
+        String email = "john-" + System.nanoTime() + "@example.com";
+        Customer customer = customerService.createCustomer("John Doe", email);
         assertNotNull(customer.getId());
         assertEquals("John Doe", customer.getName());
-        assertEquals("john@example.com", customer.getEmail());
+        assertEquals(email, customer.getEmail());
     }
 
     @Test
     public void testFindByEmail() {
-        customerService.createCustomer("Jane Doe", "jane@example.com");
+        String email = "jane-" + System.nanoTime() + "@example.com";
+        customerService.createCustomer("Jane Doe", email);
         
-        var customer = customerService.findByEmail("jane@example.com");
+        var customer = customerService.findByEmail(email);
         assertNotNull(customer);
         assertEquals("Jane Doe", customer.getName());
     }
+
+    @Test
+    public void testFindPageAfter() {
+        String suffix = Long.toString(System.nanoTime());
+        Customer first = customerService.createCustomer("Page One", "page1-" + suffix + "@example.com");
+        Customer second = customerService.createCustomer("Page Two", "page2-" + suffix + "@example.com");
+
+        List<String> seen = new ArrayList<>();
+        String lastSeenId = null;
+        List<Customer> page;
+        do {
+            page = customerService.findPageAfter(lastSeenId, 2);
+            page.forEach(customer -> seen.add(customer.getId()));
+            if (!page.isEmpty()) {
+                lastSeenId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 2);
+
+        assertTrue(seen.contains(first.getId()));
+        assertTrue(seen.contains(second.getId()));
+        assertEquals(seen.size(), new HashSet<>(seen).size());
+    }
+
+    @Test
+    public void testStreamAll() {
+        Customer customer = customerService.createCustomer("Stream Me", "stream-" + System.nanoTime() + "@example.com");
+
+        try (Stream<Customer> customers = customerService.streamAll(2)) {
+            assertTrue(customers.anyMatch(c -> c.getId().equals(customer.getId())));
+        }
+    }
+
+    @Test
+    public void testRejectDuplicateEmailIgnoringCase() {
+        String email = "dup-" + System.nanoTime() + "@example.com";
+        customerService.createCustomer("First", email);
+
+        assertTrue(customerService.emailExists("  " + email.toUpperCase() + " "));
+        assertThrows(IllegalArgumentException.class, () -> customerService.createCustomer("Second", email.toUpperCase()));
+    }
+
+    @Test
+    public void testRejectDuplicateWrittenByAnotherInstance() {
+        String email = "other-" + System.nanoTime() + "@example.com";
+        mongoTemplate.insert(new Document("name", "Elsewhere")
+            .append("email", email)
+            .append("normalizedEmail", email), "customers");
+
+        assertNotNull(customerService.findByEmail(email));
+        assertThrows(IllegalArgumentException.class, () -> customerService.createCustomer("Here", email));
+    }
+
+    @Test
+    public void testBackfillNormalizedEmail() {
+        String email = "Legacy-" + System.nanoTime() + "@Example.com";
+        mongoTemplate.insert(new Document("name", "Legacy").append("email", email), "customers");
+        assertNull(customerService.findByEmail(email));
+
+        assertTrue(customerService.backfillNormalizedEmails() >= 1);
+        Customer customer = customerService.findByEmail(email);
+        assertNotNull(customer);
+        assertEquals(Customer.normalizeEmail(email), customer.getNormalizedEmail());
+    }
+
+    @Test
+    public void testEmailFilterHasNoFalseNegatives() {
+        EmailBloomFilter filter = new EmailBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i + "@example.com"));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
 }
@@ -0,0 +1,33 @@
+package com.course.mongodb.m04.config;
+
+import com.course.mongodb.m04.dictionary.InternPool;
+import com.course.mongodb.m04.domain.Address;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+// Reads city and district through the intern pool, so a large findByCity
+// result holds one String per distinct value instead of one per document.
+// detail is free text and is left alone. Storage stays plain strings, so
+// derived queries and existing documents are unaffected.
+@ReadingConverter
+public class AddressReadConverter implements Converter<Document, Address> {
+
+    private final InternPool pool;
+
+    public AddressReadConverter(InternPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public Address convert(Document source) {
+        Address address = new Address(
+            pool.intern(source.getString("city")),
+            pool.intern(source.getString("district")),
+            source.getString("detail"));
+        Object id = source.get("_id");
+        address.setId(id instanceof ObjectId objectId ? objectId.toHexString() : id == null ? null : id.toString());
+        return address;
+    }
+}
@@ -0,0 +1,26 @@
+package com.course.mongodb.m04.config;
+
+import com.course.mongodb.m04.dictionary.InternPool;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+@Configuration
+public class MongoConfig {
+
+    // Cities and districts come from a small fixed vocabulary; the bound
+    // only guards against misuse on a high-cardinality field.
+    public static final int ADDRESS_POOL_CAPACITY = 4_096;
+
+    @Bean
+    public InternPool addressInternPool() {
+        return new InternPool(ADDRESS_POOL_CAPACITY);
+    }
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions(InternPool addressInternPool) {
+        return MongoCustomConversions.create(adapter -> adapter
+            .registerConverter(new AddressReadConverter(addressInternPool))
+        );
+    }
+}
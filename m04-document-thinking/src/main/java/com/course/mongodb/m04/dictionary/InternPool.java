@@ -0,0 +1,47 @@
+package com.course.mongodb.m04.dictionary;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded canonicalizing pool for low-cardinality strings. Equal values read
+ * from different documents share one instance. Once the pool is full, new
+ * values are returned as-is, so an unexpectedly wide field cannot grow it
+ * without limit.
+ */
+public class InternPool {
+
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    public InternPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = values.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        // The size check is racy, so the pool may overshoot by a few entries
+        // under contention. That is fine for a soft bound.
+        if (values.size() >= capacity) {
+            return value;
+        }
+        canonical = values.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
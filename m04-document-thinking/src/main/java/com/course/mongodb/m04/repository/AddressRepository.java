@@ -1,10 +1,13 @@
 package com.course.mongodb.m04.repository;
 
 import com.course.mongodb.m04.domain.Address;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 
 public interface AddressRepository extends MongoRepository<Address, String> {
     List<Address> findByCity(String city);
     List<Address> findByDistrict(String district);
+    List<Address> findAllByOrderByIdAsc(Limit limit);
+    List<Address> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
@@ -2,16 +2,24 @@ package com.course.mongodb.m04.service;
 
 import com.course.mongodb.m04.domain.Address;
 import com.course.mongodb.m04.repository.AddressRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class AddressService {
 
+    private static final int DEFAULT_STREAM_BATCH_SIZE = 500;
+
     private final AddressRepository repository;
+    private final MongoTemplate mongoTemplate;
 
-    public AddressService(AddressRepository repository) {
+    public AddressService(AddressRepository repository, MongoTemplate mongoTemplate) {
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public Address createAddress(String city, String district, String detail) {
@@ -23,6 +31,20 @@ public class AddressService {
         return repository.findAll();
     }
 
+    public Stream<Address> streamAll() {
+        return streamAll(DEFAULT_STREAM_BATCH_SIZE);
+    }
+
+    public Stream<Address> streamAll(int batchSize) {
+        return mongoTemplate.stream(new Query().cursorBatchSize(batchSize), Address.class);
+    }
+
+    public List<Address> findPageAfter(String lastSeenId, int pageSize) {
+        return lastSeenId == null
+            ? repository.findAllByOrderByIdAsc(Limit.of(pageSize))
+            : repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, Limit.of(pageSize));
+    }
+
     public Address findById(String id) {
         return repository.findById(id).orElse(null);
     }
@@ -31,6 +53,10 @@ public class AddressService {
         return repository.findByCity(city);
     }
 
+    public List<Address> findByDistrict(String district) {
+        return repository.findByDistrict(district);
+    }
+
     public void deleteById(String id) {
         repository.deleteById(id);
     }
@@ -0,0 +1,94 @@
+package com.course.mongodb.m04;
+
+import com.course.mongodb.m04.domain.Address;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Retained heap of 5M loaded addresses, read through the interning converter
+ * versus a template with the default mapping only. Needs a large heap; the
+ * benchmark task runs with -Xmx6g.
+ */
+@SpringBootTest
+@Tag("benchmark")
+public class AddressHeapBenchmark {
+
+    private static final String COLLECTION = "addresses_heap_benchmark";
+    private static final int ADDRESSES = 5_000_000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final String[] CITIES = {
+        "Taipei", "New Taipei", "Taoyuan", "Taichung", "Tainan", "Kaohsiung", "Keelung", "Hsinchu",
+        "Miaoli", "Changhua", "Nantou", "Yunlin", "Chiayi", "Pingtung", "Yilan", "Hualien",
+        "Taitung", "Penghu", "Kinmen", "Lienchiang"
+    };
+    private static final int DISTRICTS_PER_CITY = 12;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void compareRetainedHeap() {
+        generate();
+        MongoTemplate plainTemplate = new MongoTemplate(mongoTemplate.getMongoDatabaseFactory());
+
+        long plainBytes = retainedBytes(() -> plainTemplate.find(new Query(), Address.class, COLLECTION));
+        long internedBytes = retainedBytes(() -> mongoTemplate.find(new Query(), Address.class, COLLECTION));
+
+        System.out.printf("%-12s %16s %14s%n", "reader", "retained MB", "bytes/address");
+        System.out.printf("%-12s %16.1f %14.1f%n", "default", plainBytes / 1048576.0, (double) plainBytes / ADDRESSES);
+        System.out.printf("%-12s %16.1f %14.1f%n", "interned", internedBytes / 1048576.0, (double) internedBytes / ADDRESSES);
+
+        assertTrue(internedBytes < plainBytes);
+    }
+
+    private long retainedBytes(Supplier<List<Address>> load) {
+        long before = usedHeapAfterGc();
+        List<Address> addresses = load.get();
+        long after = usedHeapAfterGc();
+        assertEquals(ADDRESSES, addresses.size());
+        return after - before;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // Inserted through the raw driver; skipped when a previous run left the data behind.
+    private void generate() {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+        if (collection.countDocuments() == ADDRESSES) {
+            return;
+        }
+        collection.drop();
+        List<Document> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < ADDRESSES; i++) {
+            String city = CITIES[i % CITIES.length];
+            batch.add(new Document("city", city)
+                .append("district", city + " District " + (i / CITIES.length) % DISTRICTS_PER_CITY)
+                .append("detail", "No. " + i + ", Lane " + (i % 500)));
+            if (batch.size() == BATCH_SIZE) {
+                collection.insertMany(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch);
+        }
+    }
+}
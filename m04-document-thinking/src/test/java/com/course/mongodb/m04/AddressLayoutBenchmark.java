@@ -0,0 +1,160 @@
+package com.course.mongodb.m04;
+
+import com.course.mongodb.m04.AddressLayoutData.Layout;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded vs referenced vs $lookup for customer addresses. JMH SampleTime
+ * mode reports latency percentiles per layout and cardinality; the JUnit
+ * entry point first prints average document sizes and bytes on the wire per
+ * operation, measured with a driver command listener.
+ *
+ * Needs a local mongod; override with -Dbenchmark.mongodb.uri=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Tag("benchmark")
+public class AddressLayoutBenchmark {
+
+    private static final int CUSTOMERS = 10_000;
+    private static final int WIRE_SAMPLES = 1_000;
+
+    @Param({"1", "10", "100"})
+    public int addressesPerCustomer;
+
+    @Param({"EMBEDDED", "REFERENCED", "LOOKUP"})
+    public Layout layout;
+
+    private MongoClient client;
+    private MongoDatabase database;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = MongoClients.create(AddressLayoutData.uri());
+        database = client.getDatabase(AddressLayoutData.DATABASE);
+        AddressLayoutData.generate(database, CUSTOMERS, addressesPerCustomer);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public Object readCustomerAddresses() {
+        return AddressLayoutData.loadAddresses(database, layout, ThreadLocalRandom.current().nextInt(CUSTOMERS));
+    }
+
+    @Benchmark
+    public void updateAddressCity() {
+        AddressLayoutData.updateFirstAddressCity(database, layout,
+            ThreadLocalRandom.current().nextInt(CUSTOMERS), "City-" + ThreadLocalRandom.current().nextInt(10));
+    }
+
+    @Test
+    void runBenchmarks() throws Exception {
+        printSizesAndWireBytes();
+        new Runner(new OptionsBuilder()
+            .include(AddressLayoutBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+
+    private void printSizesAndWireBytes() {
+        WireCounter counter = new WireCounter();
+        MongoClientSettings settings = MongoClientSettings.builder()
+            .applyConnectionString(new ConnectionString(AddressLayoutData.uri()))
+            .addCommandListener(counter)
+            .build();
+        try (MongoClient measuringClient = MongoClients.create(settings)) {
+            MongoDatabase db = measuringClient.getDatabase(AddressLayoutData.DATABASE);
+            System.out.printf("%10s %12s %14s %14s %14s %14s%n",
+                "addresses", "layout", "customer B", "address B", "read B/op", "update B/op");
+            for (String cardinality : new String[] {"1", "10", "100"}) {
+                int perCustomer = Integer.parseInt(cardinality);
+                AddressLayoutData.generate(db, CUSTOMERS, perCustomer);
+                for (Layout each : Layout.values()) {
+                    String customers = each == Layout.EMBEDDED ? AddressLayoutData.EMBEDDED : AddressLayoutData.REFERENCING;
+                    double customerSize = AddressLayoutData.averageDocumentSize(db, customers);
+                    double addressSize = each == Layout.EMBEDDED ? 0 : AddressLayoutData.averageDocumentSize(db, AddressLayoutData.ADDRESSES);
+
+                    counter.reset();
+                    for (int i = 0; i < WIRE_SAMPLES; i++) {
+                        AddressLayoutData.loadAddresses(db, each, i % CUSTOMERS);
+                    }
+                    double readBytes = (double) counter.bytes() / WIRE_SAMPLES;
+
+                    counter.reset();
+                    for (int i = 0; i < WIRE_SAMPLES; i++) {
+                        AddressLayoutData.updateFirstAddressCity(db, each, i % CUSTOMERS, "Keelung");
+                    }
+                    double updateBytes = (double) counter.bytes() / WIRE_SAMPLES;
+
+                    System.out.printf("%10d %12s %14.0f %14.0f %14.0f %14.0f%n",
+                        perCustomer, each, customerSize, addressSize, readBytes, updateBytes);
+                }
+            }
+        }
+    }
+
+    // Counts encoded command and reply sizes, i.e. the BSON payload each way.
+    private static final class WireCounter implements CommandListener {
+        private final LongAdder bytes = new LongAdder();
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            bytes.add(size(event.getCommand()));
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            bytes.add(size(event.getResponse()));
+        }
+
+        void reset() {
+            bytes.reset();
+        }
+
+        long bytes() {
+            return bytes.sum();
+        }
+
+        private static int size(BsonDocument document) {
+            return new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().remaining();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.course.mongodb.m04;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the same customers and addresses in three shapes and runs the
+ * shared workloads against them:
+ * <ul>
+ *   <li>EMBEDDED: addresses stored inside the customer document</li>
+ *   <li>REFERENCED: customer holds address ids, joined in the application</li>
+ *   <li>LOOKUP: same documents as REFERENCED, joined with $lookup</li>
+ * </ul>
+ */
+final class AddressLayoutData {
+
+    static final String DATABASE = "m04_benchmark";
+    static final String EMBEDDED = "customers_embedded";
+    static final String REFERENCING = "customers_referencing";
+    static final String ADDRESSES = "customer_addresses";
+    static final String META = "benchmark_meta";
+
+    private static final int INSERT_BATCH = 1_000;
+    private static final String[] CITIES = {"Taipei", "Taichung", "Kaohsiung", "Tainan", "Hsinchu"};
+    private static final String[] DISTRICTS = {"Da'an", "Xinyi", "Zhongshan", "Beitou", "Neihu", "Songshan"};
+
+    enum Layout {
+        EMBEDDED,
+        REFERENCED,
+        LOOKUP
+    }
+
+    private AddressLayoutData() {
+    }
+
+    static String uri() {
+        return System.getProperty("benchmark.mongodb.uri", "mongodb://localhost:27017");
+    }
+
+    // Address ids are derived from the customer id so writes can target
+    // them without a read.
+    static long addressId(int customerId, int index) {
+        return (long) customerId * 1_000 + index;
+    }
+
+    static void generate(MongoDatabase database, int customers, int addressesPerCustomer) {
+        Document meta = database.getCollection(META).find(Filters.eq("_id", "layout")).first();
+        if (meta != null && meta.getInteger("customers") == customers
+                && meta.getInteger("addressesPerCustomer") == addressesPerCustomer) {
+            return;
+        }
+        MongoCollection<Document> embedded = database.getCollection(EMBEDDED);
+        MongoCollection<Document> referencing = database.getCollection(REFERENCING);
+        MongoCollection<Document> addresses = database.getCollection(ADDRESSES);
+        embedded.drop();
+        referencing.drop();
+        addresses.drop();
+
+        Random random = new Random(7);
+        List<Document> embeddedBatch = new ArrayList<>();
+        List<Document> referencingBatch = new ArrayList<>();
+        List<Document> addressBatch = new ArrayList<>();
+        for (int c = 0; c < customers; c++) {
+            List<Document> customerAddresses = new ArrayList<>(addressesPerCustomer);
+            List<Long> addressIds = new ArrayList<>(addressesPerCustomer);
+            for (int a = 0; a < addressesPerCustomer; a++) {
+                long id = addressId(c, a);
+                Document address = new Document("_id", id)
+                    .append("city", CITIES[random.nextInt(CITIES.length)])
+                    .append("district", DISTRICTS[random.nextInt(DISTRICTS.length)])
+                    .append("detail", "No. " + random.nextInt(500) + ", Lane " + random.nextInt(200));
+                customerAddresses.add(address);
+                addressIds.add(id);
+                addressBatch.add(new Document(address).append("customerId", c));
+            }
+            embeddedBatch.add(customer(c).append("addresses", customerAddresses));
+            referencingBatch.add(customer(c).append("addressIds", addressIds));
+
+            if (embeddedBatch.size() == INSERT_BATCH) {
+                embedded.insertMany(embeddedBatch);
+                referencing.insertMany(referencingBatch);
+                embeddedBatch.clear();
+                referencingBatch.clear();
+            }
+            if (addressBatch.size() >= INSERT_BATCH) {
+                addresses.insertMany(addressBatch);
+                addressBatch.clear();
+            }
+        }
+        if (!embeddedBatch.isEmpty()) {
+            embedded.insertMany(embeddedBatch);
+            referencing.insertMany(referencingBatch);
+        }
+        if (!addressBatch.isEmpty()) {
+            addresses.insertMany(addressBatch);
+        }
+        database.getCollection(META).replaceOne(Filters.eq("_id", "layout"),
+            new Document("_id", "layout").append("customers", customers).append("addressesPerCustomer", addressesPerCustomer),
+            new ReplaceOptions().upsert(true));
+    }
+
+    static List<Document> loadAddresses(MongoDatabase database, Layout layout, int customerId) {
+        return switch (layout) {
+            case EMBEDDED -> database.getCollection(EMBEDDED)
+                .find(Filters.eq("_id", customerId)).first()
+                .getList("addresses", Document.class);
+            case REFERENCED -> {
+                Document customer = database.getCollection(REFERENCING).find(Filters.eq("_id", customerId)).first();
+                yield database.getCollection(ADDRESSES)
+                    .find(Filters.in("_id", customer.getList("addressIds", Long.class)))
+                    .into(new ArrayList<>());
+            }
+            case LOOKUP -> database.getCollection(REFERENCING).aggregate(List.of(
+                    Aggregates.match(Filters.eq("_id", customerId)),
+                    Aggregates.lookup(ADDRESSES, "addressIds", "_id", "addresses")))
+                .first()
+                .getList("addresses", Document.class);
+        };
+    }
+
+    static void updateFirstAddressCity(MongoDatabase database, Layout layout, int customerId, String city) {
+        if (layout == Layout.EMBEDDED) {
+            database.getCollection(EMBEDDED).updateOne(
+                Filters.eq("_id", customerId), Updates.set("addresses.0.city", city));
+        } else {
+            database.getCollection(ADDRESSES).updateOne(
+                Filters.eq("_id", addressId(customerId, 0)), Updates.set("city", city));
+        }
+    }
+
+    static double averageDocumentSize(MongoDatabase database, String collection) {
+        Document result = database.getCollection(collection).aggregate(List.of(
+            new Document("$group", new Document("_id", null)
+                .append("avg", new Document("$avg", new Document("$bsonSize", "$$ROOT"))))
+        )).first();
+        return result == null ? 0 : ((Number) result.get("avg")).doubleValue();
+    }
+
+    private static Document customer(int id) {
+        return new Document("_id", id)
+            .append("name", "Customer " + id)
+            .append("email", "customer" + id + "@example.com");
+    }
+}
@@ -1,10 +1,25 @@
 package com.course.mongodb.m04;
 
+import com.course.mongodb.m04.config.AddressReadConverter;
+import com.course.mongodb.m04.dictionary.InternPool;
 import com.course.mongodb.m04.domain.Address;
 import com.course.mongodb.m04.service.AddressService;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -14,6 +29,9 @@ public class AddressServiceTest {
     @Autowired
     private AddressService addressService;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Test
     public void contextLoads() {
     }
@@ -34,4 +52,78 @@ public class AddressServiceTest {
         var addresses = addressService.findByCity("Los Angeles");
         assertTrue(addresses.size() >= 1);
     }
+
+    @Test
+    public void testLoadedCitiesAreInterned() {
+        String district = "Xinyi-" + System.nanoTime();
+        addressService.createAddress("Taipei", district, "No. 7, Sec. 5, Xinyi Rd");
+        addressService.createAddress("Taipei", district, "No. 45, Shifu Rd");
+
+        List<Address> addresses = addressService.findByDistrict(district);
+        assertEquals(2, addresses.size());
+        assertSame(addresses.get(0).getCity(), addresses.get(1).getCity());
+        assertSame(addresses.get(0).getDistrict(), addresses.get(1).getDistrict());
+        assertNotNull(addresses.get(0).getId());
+    }
+
+    // AddressReadConverter replaces entity mapping for Address, so a field
+    // added to Address but not to the converter would silently read as null.
+    // Every mapped property is filled and must round-trip the same way
+    // through the converter as through plain entity mapping.
+    @Test
+    public void testAddressReadConverterMatchesEntityMapping() {
+        MappingMongoConverter mapping = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE,
+            mongoTemplate.getConverter().getMappingContext());
+        mapping.afterPropertiesSet();
+        MongoPersistentEntity<?> entity = mapping.getMappingContext().getRequiredPersistentEntity(Address.class);
+
+        Address address = new Address();
+        PersistentPropertyAccessor<Address> accessor = entity.getPropertyAccessor(address);
+        for (MongoPersistentProperty property : entity) {
+            assertEquals(String.class, property.getType(), property.getName() + " needs a sample value here");
+            accessor.setProperty(property, property.isIdProperty()
+                ? new ObjectId().toHexString()
+                : property.getName() + "-" + System.nanoTime());
+        }
+        Document document = new Document();
+        mapping.write(address, document);
+
+        Address expected = mapping.read(Address.class, document);
+        Address actual = new AddressReadConverter(new InternPool(16)).convert(document);
+        for (MongoPersistentProperty property : entity) {
+            assertNotNull(entity.getPropertyAccessor(expected).getProperty(property), property.getName());
+            assertEquals(entity.getPropertyAccessor(expected).getProperty(property),
+                entity.getPropertyAccessor(actual).getProperty(property), property.getName());
+        }
+    }
+
+    @Test
+    public void testFindPageAfter() {
+        Address first = addressService.createAddress("Paging City", "North", "1 Page St");
+        Address second = addressService.createAddress("Paging City", "South", "2 Page St");
+
+        List<String> seen = new ArrayList<>();
+        String lastSeenId = null;
+        List<Address> page;
+        do {
+            page = addressService.findPageAfter(lastSeenId, 2);
+            page.forEach(item -> seen.add(item.getId()));
+            if (!page.isEmpty()) {
+                lastSeenId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 2);
+
+        assertTrue(seen.contains(first.getId()));
+        assertTrue(seen.contains(second.getId()));
+        assertEquals(seen.size(), new HashSet<>(seen).size());
+    }
+
+    @Test
+    public void testStreamAll() {
+        Address created = addressService.createAddress("Stream City", "East", "3 Stream St");
+
+        try (Stream<Address> items = addressService.streamAll(2)) {
+            assertTrue(items.anyMatch(item -> item.getId().equals(created.getId())));
+        }
+    }
 }
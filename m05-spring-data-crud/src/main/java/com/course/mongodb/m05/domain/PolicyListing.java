@@ -0,0 +1,8 @@
+package com.course.mongodb.m05.domain;
+
+// Closed interface projection; like PolicySummary it limits the fields
+// fetched, but the result is a proxy backed by the projected document.
+public interface PolicyListing {
+    String getPolicyNumber();
+    Double getPremium();
+}
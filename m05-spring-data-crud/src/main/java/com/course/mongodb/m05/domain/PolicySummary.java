@@ -0,0 +1,9 @@
+package com.course.mongodb.m05.domain;
+
+import org.springframework.data.mongodb.core.mapping.Field;
+
+// DTO projection for listing screens: the repository derives a server-side
+// projection from the component names, so only these fields are sent and
+// mapped.
+public record PolicySummary(@Field("policy_number") String policyNumber, Double premium) {
+}
@@ -1,6 +1,7 @@
 package com.course.mongodb.m05.repository;
 
 import com.course.mongodb.m05.domain.InsurancePolicy;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 
@@ -8,4 +9,9 @@ public interface InsurancePolicyRepository extends MongoRepository<InsurancePoli
     List<InsurancePolicy> findByPolicyNumber(String policyNumber);
     List<InsurancePolicy> findByStatus(String status);
     List<InsurancePolicy> findByInsuredName(String name);
+    // Dynamic projections, e.g. PolicySummary.class or PolicyListing.class.
+    <T> List<T> findByStatus(String status, Class<T> type);
+    <T> List<T> findByInsuredName(String name, Class<T> type);
+    List<InsurancePolicy> findAllByOrderByIdAsc(Limit limit);
+    List<InsurancePolicy> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
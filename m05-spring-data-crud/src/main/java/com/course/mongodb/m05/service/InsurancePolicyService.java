@@ -1,17 +1,30 @@
 package com.course.mongodb.m05.service;
 
 import com.course.mongodb.m05.domain.InsurancePolicy;
+import com.course.mongodb.m05.domain.PolicySummary;
 import com.course.mongodb.m05.repository.InsurancePolicyRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class InsurancePolicyService {
 
+    private static final int DEFAULT_STREAM_BATCH_SIZE = 500;
+
     private final InsurancePolicyRepository repository;
+    private final MongoTemplate mongoTemplate;
 
-    public InsurancePolicyService(InsurancePolicyRepository repository) {
+    public InsurancePolicyService(InsurancePolicyRepository repository, MongoTemplate mongoTemplate) {
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public InsurancePolicy createPolicy(String policyNumber, Double premium, String status,
@@ -24,17 +37,79 @@ public class InsurancePolicyService {
         return repository.findAll();
     }
 
+    public Stream<InsurancePolicy> streamAll() {
+        return streamAll(DEFAULT_STREAM_BATCH_SIZE);
+    }
+
+    public Stream<InsurancePolicy> streamAll(int batchSize) {
+        return mongoTemplate.stream(new Query().cursorBatchSize(batchSize), InsurancePolicy.class);
+    }
+
+    public List<InsurancePolicy> findPageAfter(String lastSeenId, int pageSize) {
+        return lastSeenId == null
+            ? repository.findAllByOrderByIdAsc(Limit.of(pageSize))
+            : repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, Limit.of(pageSize));
+    }
+
     public InsurancePolicy findById(String id) {
         return repository.findById(id).orElse(null);
     }
 
+    // Sends only $set for status instead of saving the whole document.
     public InsurancePolicy updateStatus(String id, String status) {
-        InsurancePolicy policy = findById(id);
-        if (policy != null) {
-            policy.setStatus(status);
-            return repository.save(policy);
+        return patchAndGet(id, PolicyPatch.create().status(status));
+    }
+
+    // Returns whether a policy with this id existed.
+    public boolean patch(String id, PolicyPatch patch) {
+        return mongoTemplate.updateFirst(byId(id), patch.toUpdate(), InsurancePolicy.class).getMatchedCount() > 0;
+    }
+
+    // findAndModify: applies the patch and returns the updated policy, or
+    // null if there is none with this id.
+    public InsurancePolicy patchAndGet(String id, PolicyPatch patch) {
+        return mongoTemplate.findAndModify(byId(id), patch.toUpdate(),
+            FindAndModifyOptions.options().returnNew(true), InsurancePolicy.class);
+    }
+
+    // Set-based transition: one updateMany for every policy matching the
+    // criteria, e.g. Criteria.where("status").is("ACTIVE").
+    public StatusTransitionResult transitionStatus(Criteria criteria, String targetStatus) {
+        UpdateResult result = mongoTemplate.updateMulti(Query.query(criteria),
+            PolicyPatch.create().status(targetStatus).toUpdate(), InsurancePolicy.class);
+        return StatusTransitionResult.EMPTY.plus(result.getMatchedCount(), result.getModifiedCount());
+    }
+
+    // Same transition, split into updateMany calls over consecutive _id
+    // ranges of at most chunkSize matching policies, so no single write
+    // runs for the whole set. Each chunk is atomic per document only.
+    public StatusTransitionResult transitionStatus(Criteria criteria, String targetStatus, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        StatusTransitionResult total = StatusTransitionResult.EMPTY;
+        String lastId = null;
+        while (true) {
+            Query chunk = Query.query(new Criteria().andOperator(criteria, idAfter(lastId)))
+                .with(Sort.by("id"))
+                .limit(chunkSize);
+            chunk.fields().include("id");
+            List<InsurancePolicy> ids = mongoTemplate.find(chunk, InsurancePolicy.class);
+            if (ids.isEmpty()) {
+                return total;
+            }
+
+            String upper = ids.get(ids.size() - 1).getId();
+            UpdateResult result = mongoTemplate.updateMulti(
+                Query.query(new Criteria().andOperator(criteria, idAfter(lastId).lte(upper))),
+                PolicyPatch.create().status(targetStatus).toUpdate(), InsurancePolicy.class);
+            total = total.plus(result.getMatchedCount(), result.getModifiedCount());
+            // A short chunk was the last one; no empty trailing round trip.
+            if (ids.size() < chunkSize) {
+                return total;
+            }
+            lastId = upper;
         }
-        return null;
     }
 
     public void deleteById(String id) {
@@ -44,4 +119,23 @@ public class InsurancePolicyService {
     public List<InsurancePolicy> findByStatus(String status) {
         return repository.findByStatus(status);
     }
+
+    public List<PolicySummary> findSummariesByStatus(String status) {
+        return repository.findByStatus(status, PolicySummary.class);
+    }
+
+    public List<PolicySummary> findSummariesByInsuredName(String name) {
+        return repository.findByInsuredName(name, PolicySummary.class);
+    }
+
+    // String ids are mapped to the stored _id type by the query mapper.
+    private static Criteria idAfter(String lastId) {
+        return lastId == null
+            ? Criteria.where("id").exists(true)
+            : Criteria.where("id").gt(lastId);
+    }
+
+    private static Query byId(String id) {
+        return Query.query(Criteria.where("id").is(id));
+    }
 }
@@ -0,0 +1,82 @@
+package com.course.mongodb.m05.service;
+
+import com.course.mongodb.m05.domain.InsurancePolicy;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typed field patch for {@link InsurancePolicy}. Only the fields touched here
+ * end up in the update: a value becomes {@code $set}, a {@code null} becomes
+ * {@code $unset}. Paths are property names; the mapper turns them into the
+ * stored field names (policy_number, insured.*).
+ */
+public class PolicyPatch {
+
+    private final Map<String, Object> sets = new LinkedHashMap<>();
+    private final Set<String> unsets = new LinkedHashSet<>();
+
+    private PolicyPatch() {
+    }
+
+    public static PolicyPatch create() {
+        return new PolicyPatch();
+    }
+
+    public PolicyPatch policyNumber(String policyNumber) {
+        return field("policyNumber", policyNumber);
+    }
+
+    public PolicyPatch premium(Double premium) {
+        return field("premium", premium);
+    }
+
+    public PolicyPatch status(String status) {
+        return field("status", status);
+    }
+
+    public PolicyPatch insured(InsurancePolicy.InsuredPerson insured) {
+        return field("insured", insured);
+    }
+
+    public PolicyPatch insuredName(String name) {
+        return field("insured.name", name);
+    }
+
+    public PolicyPatch insuredAge(Integer age) {
+        return field("insured.age", age);
+    }
+
+    public PolicyPatch insuredEmail(String email) {
+        return field("insured.email", email);
+    }
+
+    public boolean isEmpty() {
+        return sets.isEmpty() && unsets.isEmpty();
+    }
+
+    public Update toUpdate() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Patch has no fields");
+        }
+        Update update = new Update();
+        sets.forEach(update::set);
+        unsets.forEach(update::unset);
+        return update;
+    }
+
+    // Last call for a path wins, whether it was a set or an unset.
+    private PolicyPatch field(String path, Object value) {
+        if (value == null) {
+            sets.remove(path);
+            unsets.add(path);
+        } else {
+            unsets.remove(path);
+            sets.put(path, value);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,10 @@
+package com.course.mongodb.m05.service;
+
+public record StatusTransitionResult(long matched, long modified, int chunks) {
+
+    static final StatusTransitionResult EMPTY = new StatusTransitionResult(0, 0, 0);
+
+    StatusTransitionResult plus(long matched, long modified) {
+        return new StatusTransitionResult(this.matched + matched, this.modified + modified, chunks + 1);
+    }
+}
@@ -1,10 +1,21 @@
 package com.course.mongodb.m05;
 
 import com.course.mongodb.m05.domain.InsurancePolicy;
+import com.course.mongodb.m05.domain.PolicyListing;
+import com.course.mongodb.m05.domain.PolicySummary;
+import com.course.mongodb.m05.repository.InsurancePolicyRepository;
 import com.course.mongodb.m05.service.InsurancePolicyService;
+import com.course.mongodb.m05.service.PolicyPatch;
+import com.course.mongodb.m05.service.StatusTransitionResult;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -14,6 +25,9 @@ public class InsurancePolicyServiceTest {
     @Autowired
     private InsurancePolicyService policyService;
 
+    @Autowired
+    private InsurancePolicyRepository repository;
+
     @Test
     public void contextLoads() {
     }
@@ -39,4 +53,114 @@ public class InsurancePolicyServiceTest {
         var policies = policyService.findByStatus("ACTIVE");
         assertTrue(policies.size() >= 1);
     }
+
+    @Test
+    public void testUpdateStatusOnlyChangesStatus() {
+        InsurancePolicy.InsuredPerson insured = new InsurancePolicy.InsuredPerson("Amy Lin", 41, "amy@example.com");
+        InsurancePolicy created = policyService.createPolicy("POL-" + System.nanoTime(), 1200.00, "ACTIVE", insured);
+
+        InsurancePolicy updated = policyService.updateStatus(created.getId(), "LAPSED");
+        assertEquals("LAPSED", updated.getStatus());
+        assertEquals(created.getPolicyNumber(), updated.getPolicyNumber());
+        assertEquals("Amy Lin", updated.getInsured().getName());
+
+        assertNull(policyService.updateStatus("000000000000000000000000", "LAPSED"));
+    }
+
+    @Test
+    public void testPatchSetsAndUnsetsFields() {
+        InsurancePolicy.InsuredPerson insured = new InsurancePolicy.InsuredPerson("Ben Wu", 52, "ben@example.com");
+        InsurancePolicy created = policyService.createPolicy("POL-" + System.nanoTime(), 900.00, "ACTIVE", insured);
+
+        assertTrue(policyService.patch(created.getId(), PolicyPatch.create().premium(950.00).insuredEmail(null)));
+
+        InsurancePolicy reloaded = policyService.findById(created.getId());
+        assertEquals(950.00, reloaded.getPremium());
+        assertEquals(52, reloaded.getInsured().getAge());
+        assertNull(reloaded.getInsured().getEmail());
+        assertThrows(IllegalStateException.class, () -> policyService.patch(created.getId(), PolicyPatch.create()));
+    }
+
+    @Test
+    public void testProjectedFindByStatus() {
+        String status = "PROJECTED-" + System.nanoTime();
+        InsurancePolicy.InsuredPerson insured = new InsurancePolicy.InsuredPerson("Cara Chen", 30, "cara@example.com");
+        policyService.createPolicy("POL-P1", 700.00, status, insured);
+
+        List<PolicySummary> summaries = policyService.findSummariesByStatus(status);
+        assertEquals(List.of(new PolicySummary("POL-P1", 700.00)), summaries);
+
+        List<PolicyListing> listings = repository.findByStatus(status, PolicyListing.class);
+        assertEquals(1, listings.size());
+        assertEquals("POL-P1", listings.get(0).getPolicyNumber());
+        assertEquals(700.00, listings.get(0).getPremium());
+    }
+
+    @Test
+    public void testTransitionStatusInChunks() {
+        String active = "RENEWAL-" + System.nanoTime();
+        InsurancePolicy.InsuredPerson insured = new InsurancePolicy.InsuredPerson("Dan Ho", 45, "dan@example.com");
+        for (int i = 0; i < 7; i++) {
+            policyService.createPolicy("POL-R" + i, 800.00, active, insured);
+        }
+
+        StatusTransitionResult result = policyService.transitionStatus(
+            Criteria.where("status").is(active), active + "-PENDING", 3);
+        assertEquals(7, result.matched());
+        assertEquals(7, result.modified());
+        assertEquals(3, result.chunks());
+        assertTrue(policyService.findByStatus(active).isEmpty());
+        assertEquals(7, policyService.findByStatus(active + "-PENDING").size());
+
+        StatusTransitionResult single = policyService.transitionStatus(
+            Criteria.where("status").is(active + "-PENDING"), active + "-RENEWED");
+        assertEquals(7, single.modified());
+    }
+
+    @Test
+    public void testTransitionStatusExactMultipleOfChunkSize() {
+        String active = "EXACT-" + System.nanoTime();
+        InsurancePolicy.InsuredPerson insured = new InsurancePolicy.InsuredPerson("Eve Lo", 38, "eve@example.com");
+        for (int i = 0; i < 6; i++) {
+            policyService.createPolicy("POL-E" + i, 500.00, active, insured);
+        }
+
+        StatusTransitionResult result = policyService.transitionStatus(
+            Criteria.where("status").is(active), active + "-LAPSED", 3);
+        assertEquals(6, result.modified());
+        assertEquals(2, result.chunks());
+        assertEquals(6, policyService.findByStatus(active + "-LAPSED").size());
+    }
+
+    @Test
+    public void testFindPageAfter() {
+        InsurancePolicy.InsuredPerson insured = new InsurancePolicy.InsuredPerson("Page One", 30, "page@example.com");
+        InsurancePolicy first = policyService.createPolicy("POL-PAGE-" + System.nanoTime(), 100.00, "ACTIVE", insured);
+        InsurancePolicy second = policyService.createPolicy("POL-PAGE-" + System.nanoTime(), 200.00, "ACTIVE", insured);
+
+        List<String> seen = new ArrayList<>();
+        String lastSeenId = null;
+        List<InsurancePolicy> page;
+        do {
+            page = policyService.findPageAfter(lastSeenId, 2);
+            page.forEach(item -> seen.add(item.getId()));
+            if (!page.isEmpty()) {
+                lastSeenId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 2);
+
+        assertTrue(seen.contains(first.getId()));
+        assertTrue(seen.contains(second.getId()));
+        assertEquals(seen.size(), new HashSet<>(seen).size());
+    }
+
+    @Test
+    public void testStreamAll() {
+        InsurancePolicy.InsuredPerson insured = new InsurancePolicy.InsuredPerson("Stream Me", 32, "stream@example.com");
+        InsurancePolicy created = policyService.createPolicy("POL-STREAM-" + System.nanoTime(), 300.00, "ACTIVE", insured);
+
+        try (Stream<InsurancePolicy> items = policyService.streamAll(2)) {
+            assertTrue(items.anyMatch(item -> item.getId().equals(created.getId())));
+        }
+    }
 }
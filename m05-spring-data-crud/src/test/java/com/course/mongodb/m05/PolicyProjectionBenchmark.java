@@ -0,0 +1,112 @@
+package com.course.mongodb.m05;
+
+import com.course.mongodb.m05.domain.InsurancePolicy;
+import com.course.mongodb.m05.domain.PolicySummary;
+import com.course.mongodb.m05.repository.InsurancePolicyRepository;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads 100k policies by status as full entities and as PolicySummary
+ * projections. Prints the mean read time and the reply bytes received per
+ * read.
+ */
+@SpringBootTest
+@Tag("benchmark")
+public class PolicyProjectionBenchmark {
+
+    private static final String STATUS = "PROJECTION_BENCH";
+    private static final int POLICIES = 100_000;
+    private static final int BATCH_SIZE = 5_000;
+    private static final int WARMUP = 2;
+    private static final int RUNS = 5;
+
+    private static final LongAdder REPLY_BYTES = new LongAdder();
+
+    @TestConfiguration
+    static class ReplySizeConfig {
+        // Counts encoded reply sizes, i.e. what the server sent back.
+        @Bean
+        MongoClientSettingsBuilderCustomizer replySizeListener() {
+            return builder -> builder.addCommandListener(new CommandListener() {
+                @Override
+                public void commandSucceeded(CommandSucceededEvent event) {
+                    REPLY_BYTES.add(new RawBsonDocument(event.getResponse(), new BsonDocumentCodec())
+                        .getByteBuffer().remaining());
+                }
+            });
+        }
+    }
+
+    @Autowired
+    private InsurancePolicyRepository repository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void compareFullEntityWithProjection() {
+        generate();
+
+        Result full = measure(() -> repository.findByStatus(STATUS));
+        Result projected = measure(() -> repository.findByStatus(STATUS, PolicySummary.class));
+
+        System.out.printf("%-14s %12s %16s%n", "read model", "ms/read", "reply MB/read");
+        System.out.printf("%-14s %12.1f %16.2f%n", "InsurancePolicy", full.millis(), full.bytes() / 1048576.0);
+        System.out.printf("%-14s %12.1f %16.2f%n", "PolicySummary", projected.millis(), projected.bytes() / 1048576.0);
+
+        assertTrue(projected.bytes() < full.bytes());
+    }
+
+    private Result measure(Supplier<List<?>> read) {
+        for (int i = 0; i < WARMUP; i++) {
+            assertEquals(POLICIES, read.get().size());
+        }
+        REPLY_BYTES.reset();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            assertEquals(POLICIES, read.get().size());
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / RUNS;
+        return new Result(millis, REPLY_BYTES.sum() / RUNS);
+    }
+
+    private void generate() {
+        mongoTemplate.remove(Query.query(Criteria.where("status").is(STATUS)), InsurancePolicy.class);
+        List<InsurancePolicy> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < POLICIES; i++) {
+            InsurancePolicy.InsuredPerson insured = new InsurancePolicy.InsuredPerson(
+                "Insured " + i, 20 + i % 60, "insured" + i + "@example.com");
+            batch.add(new InsurancePolicy("PB-" + i, 500.0 + i % 1000, STATUS, insured));
+            if (batch.size() == BATCH_SIZE) {
+                mongoTemplate.insert(batch, InsurancePolicy.class);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, InsurancePolicy.class);
+        }
+    }
+
+    private record Result(double millis, long bytes) {
+    }
+}
@@ -1,11 +1,19 @@
 package com.course.mongodb.m06.domain;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import java.time.LocalDate;
 
 @Document(collection = "transactions")
+// Both end in _id so keyset pages in (date, _id) order are index-ordered
+// seeks with no in-memory sort.
+@CompoundIndexes({
+    @CompoundIndex(name = "account_date_id", def = "{'account_id': 1, 'date': 1, '_id': 1}"),
+    @CompoundIndex(name = "date_id", def = "{'date': 1, '_id': 1}")
+})
 public class Transaction {
     @Id
     private String id;
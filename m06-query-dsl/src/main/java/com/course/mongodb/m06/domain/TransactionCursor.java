@@ -0,0 +1,11 @@
+package com.course.mongodb.m06.domain;
+
+import java.time.LocalDate;
+
+// Keyset position in (date, _id) order: the last row of the previous page.
+public record TransactionCursor(LocalDate date, String id) {
+
+    public static TransactionCursor after(Transaction transaction) {
+        return new TransactionCursor(transaction.getDate(), transaction.getId());
+    }
+}
@@ -1,6 +1,7 @@
 package com.course.mongodb.m06.repository;
 
 import com.course.mongodb.m06.domain.Transaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.time.LocalDate;
 import java.util.List;
@@ -9,4 +10,6 @@ public interface TransactionRepository extends MongoRepository<Transaction, Stri
     List<Transaction> findByAccountId(String accountId);
     List<Transaction> findByAccountIdAndType(String accountId, String type);
     List<Transaction> findByDateBetween(LocalDate startDate, LocalDate endDate);
+    List<Transaction> findAllByOrderByIdAsc(Limit limit);
+    List<Transaction> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
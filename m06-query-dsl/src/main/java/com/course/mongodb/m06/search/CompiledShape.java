@@ -0,0 +1,74 @@
+package com.course.mongodb.m06.search;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// A query shape compiled once: the filters grouped by stored field in a
+// fixed order, so binding is just filling in values. Also holds the shape's
+// execution counters.
+final class CompiledShape {
+
+    private final Set<TransactionFilter> filters;
+    private final Map<String, List<TransactionFilter>> byField;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    CompiledShape(int shape) {
+        EnumSet<TransactionFilter> filters = EnumSet.noneOf(TransactionFilter.class);
+        Map<String, List<TransactionFilter>> byField = new LinkedHashMap<>();
+        for (TransactionFilter filter : TransactionFilter.values()) {
+            if ((shape & filter.bit()) != 0) {
+                filters.add(filter);
+                byField.computeIfAbsent(filter.field(), field -> new ArrayList<>()).add(filter);
+            }
+        }
+        this.filters = Collections.unmodifiableSet(filters);
+        this.byField = byField;
+    }
+
+    Document bind(Map<TransactionFilter, Object> values) {
+        Document query = new Document();
+        byField.forEach((field, fieldFilters) -> {
+            Document operators = new Document();
+            for (TransactionFilter filter : fieldFilters) {
+                operators.put(filter.operator(), values.get(filter));
+            }
+            query.put(field, operators);
+        });
+        return query;
+    }
+
+    void record(long nanos, int resultSize) {
+        executions.increment();
+        documents.add(resultSize);
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    ShapeMetrics metrics() {
+        long count = executions.sum();
+        double nanosPerMilli = TimeUnit.MILLISECONDS.toNanos(1);
+        return new ShapeMetrics(filters, template(), count, documents.sum(),
+            count == 0 ? 0 : totalNanos.sum() / nanosPerMilli / count,
+            maxNanos.get() / nanosPerMilli);
+    }
+
+    // The filter with "?" in place of values, for reading metrics.
+    private String template() {
+        Map<TransactionFilter, Object> placeholders = new LinkedHashMap<>();
+        filters.forEach(filter -> placeholders.put(filter, "?"));
+        return bind(placeholders).toJson();
+    }
+}
@@ -0,0 +1,8 @@
+package com.course.mongodb.m06.search;
+
+import java.util.Set;
+
+// Snapshot of one query shape's executions since startup.
+public record ShapeMetrics(Set<TransactionFilter> filters, String filterTemplate, long executions,
+        long documents, double meanMillis, double maxMillis) {
+}
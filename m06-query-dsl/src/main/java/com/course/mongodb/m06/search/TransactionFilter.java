@@ -0,0 +1,32 @@
+package com.course.mongodb.m06.search;
+
+// One optional search filter: the stored field it applies to and the
+// operator. A set of these is a query shape.
+public enum TransactionFilter {
+    ACCOUNT("account_id", "$eq"),
+    TYPE("type", "$eq"),
+    MIN_AMOUNT("amount", "$gte"),
+    MAX_AMOUNT("amount", "$lte"),
+    FROM_DATE("date", "$gte"),
+    TO_DATE("date", "$lte");
+
+    private final String field;
+    private final String operator;
+
+    TransactionFilter(String field, String operator) {
+        this.field = field;
+        this.operator = operator;
+    }
+
+    public String field() {
+        return field;
+    }
+
+    public String operator() {
+        return operator;
+    }
+
+    int bit() {
+        return 1 << ordinal();
+    }
+}
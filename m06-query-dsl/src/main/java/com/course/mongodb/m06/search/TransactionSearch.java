@@ -0,0 +1,69 @@
+package com.course.mongodb.m06.search;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Typed set of optional filters for the transaction search screen. Filters
+ * left unset are not part of the query; date bounds are inclusive.
+ */
+public class TransactionSearch {
+
+    private final EnumMap<TransactionFilter, Object> values = new EnumMap<>(TransactionFilter.class);
+
+    private TransactionSearch() {
+    }
+
+    public static TransactionSearch create() {
+        return new TransactionSearch();
+    }
+
+    public TransactionSearch accountId(String accountId) {
+        return with(TransactionFilter.ACCOUNT, accountId);
+    }
+
+    public TransactionSearch type(String type) {
+        return with(TransactionFilter.TYPE, type);
+    }
+
+    public TransactionSearch minAmount(Double minAmount) {
+        return with(TransactionFilter.MIN_AMOUNT, minAmount);
+    }
+
+    public TransactionSearch maxAmount(Double maxAmount) {
+        return with(TransactionFilter.MAX_AMOUNT, maxAmount);
+    }
+
+    public TransactionSearch fromDate(LocalDate fromDate) {
+        return with(TransactionFilter.FROM_DATE, fromDate);
+    }
+
+    public TransactionSearch toDate(LocalDate toDate) {
+        return with(TransactionFilter.TO_DATE, toDate);
+    }
+
+    // Bit mask of the filters in use; searches with the same mask share a
+    // compiled query.
+    int shape() {
+        int shape = 0;
+        for (TransactionFilter filter : values.keySet()) {
+            shape |= filter.bit();
+        }
+        return shape;
+    }
+
+    Map<TransactionFilter, Object> values() {
+        return values;
+    }
+
+    // null clears the filter, so form fields can be passed straight through.
+    private TransactionSearch with(TransactionFilter filter, Object value) {
+        if (value == null) {
+            values.remove(filter);
+        } else {
+            values.put(filter, value);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,55 @@
+package com.course.mongodb.m06.search;
+
+import com.course.mongodb.m06.domain.Transaction;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs {@link TransactionSearch} filters. Each combination of filters is
+ * compiled once into a {@link CompiledShape} and cached by shape; a request
+ * only binds its values. Per-shape metrics show which combinations are slow
+ * and may need an index.
+ */
+@Service
+public class TransactionSearchService {
+
+    public static final int MAX_LIMIT = 1_000;
+    private static final Document DATE_ID_ORDER = new Document("date", 1).append("_id", 1);
+
+    private final MongoTemplate mongoTemplate;
+    // At most 2^6 shapes, so the cache needs no bound.
+    private final ConcurrentHashMap<Integer, CompiledShape> shapes = new ConcurrentHashMap<>();
+
+    public TransactionSearchService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public List<Transaction> search(TransactionSearch search, int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        CompiledShape shape = shapes.computeIfAbsent(search.shape(), CompiledShape::new);
+        BasicQuery query = new BasicQuery(shape.bind(search.values()));
+        query.setSortObject(DATE_ID_ORDER);
+        query.limit(limit);
+
+        long start = System.nanoTime();
+        List<Transaction> results = mongoTemplate.find(query, Transaction.class);
+        shape.record(System.nanoTime() - start, results.size());
+        return results;
+    }
+
+    // Slowest shapes first, by total time spent.
+    public List<ShapeMetrics> metrics() {
+        return shapes.values().stream()
+            .map(CompiledShape::metrics)
+            .sorted(Comparator.comparingDouble((ShapeMetrics m) -> m.meanMillis() * m.executions()).reversed())
+            .toList();
+    }
+}
@@ -0,0 +1,140 @@
+package com.course.mongodb.m06.service;
+
+import com.course.mongodb.m06.domain.Transaction;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Runs a date-range query as N contiguous day partitions, each on its own
+ * virtual thread and cursor, with at most {@link #MAX_CONCURRENCY} queries in
+ * flight. Bounds match {@link TransactionService#findByDateBetween}: both
+ * ends exclusive.
+ */
+@Service
+public class PartitionedDateRangeExecutor {
+
+    // Caps queries in flight regardless of partition count, so a fine split
+    // does not take every pooled connection.
+    public static final int MAX_CONCURRENCY = 8;
+    private static final int BATCH_SIZE = 1_000;
+    private static final Sort DATE_ID_ORDER = Sort.by("date", "id");
+
+    private final MongoTemplate mongoTemplate;
+
+    public PartitionedDateRangeExecutor(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Results in (date, _id) order: partitions are contiguous and each one
+    // is sorted, so concatenating them in partition order is enough.
+    public List<Transaction> findByDateBetween(LocalDate startDate, LocalDate endDate, int partitions) {
+        List<List<Transaction>> parts = run(startDate, endDate, partitions, range -> {
+            try (Stream<Transaction> rows = stream(range)) {
+                return rows.toList();
+            }
+        });
+        List<Transaction> merged = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+        parts.forEach(merged::addAll);
+        return merged;
+    }
+
+    // Streams every row to the consumer without materializing the result.
+    // The consumer is called from several threads at once and must be
+    // thread-safe; order is only guaranteed within a partition.
+    public long forEach(LocalDate startDate, LocalDate endDate, int partitions, Consumer<Transaction> consumer) {
+        List<Long> counts = run(startDate, endDate, partitions, range -> {
+            long count = 0;
+            try (Stream<Transaction> rows = stream(range)) {
+                for (Transaction row : (Iterable<Transaction>) rows::iterator) {
+                    consumer.accept(row);
+                    count++;
+                }
+            }
+            return count;
+        });
+        return counts.stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Splits the days strictly between the bounds into at most `partitions`
+    // inclusive ranges of near-equal length.
+    static List<DayRange> partition(LocalDate startDate, LocalDate endDate, int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Partitions must be positive");
+        }
+        LocalDate first = startDate.plusDays(1);
+        long days = ChronoUnit.DAYS.between(first, endDate);
+        if (days <= 0) {
+            return List.of();
+        }
+        int count = (int) Math.min(partitions, days);
+        List<DayRange> ranges = new ArrayList<>(count);
+        long offset = 0;
+        for (int i = 0; i < count; i++) {
+            long length = days / count + (i < days % count ? 1 : 0);
+            ranges.add(new DayRange(first.plusDays(offset), first.plusDays(offset + length - 1)));
+            offset += length;
+        }
+        return ranges;
+    }
+
+    private <T> List<T> run(LocalDate startDate, LocalDate endDate, int partitions, PartitionTask<T> task) {
+        List<DayRange> ranges = partition(startDate, endDate, partitions);
+        Semaphore permits = new Semaphore(MAX_CONCURRENCY);
+        List<Future<T>> futures = new ArrayList<>(ranges.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (DayRange range : ranges) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return task.run(range);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying partitions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Partition query failed", e.getCause());
+        }
+    }
+
+    private Stream<Transaction> stream(DayRange range) {
+        Query query = Query.query(Criteria.where("date").gte(range.from()).lte(range.to()))
+            .with(DATE_ID_ORDER)
+            .cursorBatchSize(BATCH_SIZE);
+        return mongoTemplate.stream(query, Transaction.class);
+    }
+
+    record DayRange(LocalDate from, LocalDate to) {
+    }
+
+    @FunctionalInterface
+    private interface PartitionTask<T> {
+        T run(DayRange range) throws Exception;
+    }
+}
@@ -0,0 +1,14 @@
+package com.course.mongodb.m06.service;
+
+import com.course.mongodb.m06.domain.Transaction;
+import com.course.mongodb.m06.domain.TransactionCursor;
+
+import java.util.List;
+
+// next is null on the last page.
+public record TransactionPage(List<Transaction> content, TransactionCursor next) {
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
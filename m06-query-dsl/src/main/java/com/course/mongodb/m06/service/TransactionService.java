@@ -1,18 +1,31 @@
 package com.course.mongodb.m06.service;
 
 import com.course.mongodb.m06.domain.Transaction;
+import com.course.mongodb.m06.domain.TransactionCursor;
 import com.course.mongodb.m06.repository.TransactionRepository;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionService {
 
+    private static final int DEFAULT_STREAM_BATCH_SIZE = 500;
+    private static final Sort DATE_ID_ORDER = Sort.by("date", "id");
+
     private final TransactionRepository repository;
+    private final MongoTemplate mongoTemplate;
 
-    public TransactionService(TransactionRepository repository) {
+    public TransactionService(TransactionRepository repository, MongoTemplate mongoTemplate) {
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public Transaction createTransaction(String accountId, Double amount, LocalDate date, String type) {
@@ -24,6 +37,20 @@ public class TransactionService {
         return repository.findAll();
     }
 
+    public Stream<Transaction> streamAll() {
+        return streamAll(DEFAULT_STREAM_BATCH_SIZE);
+    }
+
+    public Stream<Transaction> streamAll(int batchSize) {
+        return mongoTemplate.stream(new Query().cursorBatchSize(batchSize), Transaction.class);
+    }
+
+    public List<Transaction> findPageAfter(String lastSeenId, int pageSize) {
+        return lastSeenId == null
+            ? repository.findAllByOrderByIdAsc(Limit.of(pageSize))
+            : repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, Limit.of(pageSize));
+    }
+
     public Transaction findById(String id) {
         return repository.findById(id).orElse(null);
     }
@@ -40,7 +67,56 @@ public class TransactionService {
         return repository.findByDateBetween(startDate, endDate);
     }
 
+    // Keyset pagination in (date, _id) order for one account. Pass null for
+    // the first page, then the previous page's next cursor; each page is an
+    // index seek, so latency does not grow with page depth.
+    public TransactionPage findPageByAccountId(String accountId, TransactionCursor after, int pageSize) {
+        return findPage(Criteria.where("accountId").is(accountId), after, pageSize);
+    }
+
+    // Same bounds as findByDateBetween (both exclusive).
+    public TransactionPage findPageByDateBetween(LocalDate startDate, LocalDate endDate,
+            TransactionCursor after, int pageSize) {
+        return findPage(dateBetween(startDate, endDate), after, pageSize);
+    }
+
+    // Cursor-backed variants of the list queries, in (date, _id) order.
+    // Callers must close the stream.
+    public Stream<Transaction> streamByAccountId(String accountId) {
+        return stream(Criteria.where("accountId").is(accountId));
+    }
+
+    public Stream<Transaction> streamByDateBetween(LocalDate startDate, LocalDate endDate) {
+        return stream(dateBetween(startDate, endDate));
+    }
+
     public void deleteById(String id) {
         repository.deleteById(id);
     }
+
+    private TransactionPage findPage(Criteria filter, TransactionCursor after, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        Criteria criteria = after == null ? filter : new Criteria().andOperator(filter, new Criteria().orOperator(
+            Criteria.where("date").gt(after.date()),
+            Criteria.where("date").is(after.date()).and("id").gt(new ObjectId(after.id()))));
+        // One extra row tells us whether there is a next page.
+        List<Transaction> rows = mongoTemplate.find(
+            Query.query(criteria).with(DATE_ID_ORDER).limit(pageSize + 1), Transaction.class);
+        if (rows.size() <= pageSize) {
+            return new TransactionPage(rows, null);
+        }
+        List<Transaction> content = rows.subList(0, pageSize);
+        return new TransactionPage(content, TransactionCursor.after(content.get(pageSize - 1)));
+    }
+
+    private Stream<Transaction> stream(Criteria filter) {
+        return mongoTemplate.stream(
+            Query.query(filter).with(DATE_ID_ORDER).cursorBatchSize(DEFAULT_STREAM_BATCH_SIZE), Transaction.class);
+    }
+
+    private static Criteria dateBetween(LocalDate startDate, LocalDate endDate) {
+        return Criteria.where("date").gt(startDate).lt(endDate);
+    }
 }
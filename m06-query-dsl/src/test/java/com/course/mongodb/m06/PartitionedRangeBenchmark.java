@@ -0,0 +1,91 @@
+package com.course.mongodb.m06;
+
+import com.course.mongodb.m06.domain.Transaction;
+import com.course.mongodb.m06.service.PartitionedDateRangeExecutor;
+import com.course.mongodb.m06.service.TransactionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Speedup of the partitioned executor over the single-cursor
+ * findByDateBetween for a three-year range of 1M transactions, by partition
+ * count.
+ */
+@SpringBootTest
+@Tag("benchmark")
+public class PartitionedRangeBenchmark {
+
+    private static final String TYPE = "PARTITION_BENCH";
+    private static final LocalDate FIRST_DAY = LocalDate.of(2001, 1, 1);
+    private static final int DAYS = 3 * 365;
+    private static final int TRANSACTIONS = 1_000_000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int[] PARTITIONS = {1, 2, 4, 8, 16, 32};
+    private static final int RUNS = 3;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PartitionedDateRangeExecutor partitionedExecutor;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void speedupByPartitionCount() {
+        generate();
+        LocalDate start = FIRST_DAY.minusDays(1);
+        LocalDate end = FIRST_DAY.plusDays(DAYS);
+
+        double baseline = time(() -> transactionService.findByDateBetween(start, end));
+        System.out.printf("%-12s %10s %10s%n", "partitions", "ms", "speedup");
+        System.out.printf("%-12s %10.0f %10s%n", "sequential", baseline, "1.00");
+        for (int partitions : PARTITIONS) {
+            double millis = time(() -> partitionedExecutor.findByDateBetween(start, end, partitions));
+            System.out.printf("%-12d %10.0f %10.2f%n", partitions, millis, baseline / millis);
+        }
+    }
+
+    private double time(Supplier<List<Transaction>> query) {
+        int expected = query.get().size();
+        assertTrue(expected >= TRANSACTIONS);
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            assertEquals(expected, query.get().size());
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / RUNS;
+    }
+
+    // Kept between runs; regenerated only if the count is off.
+    private void generate() {
+        Query benchRows = Query.query(Criteria.where("type").is(TYPE));
+        if (mongoTemplate.count(benchRows, Transaction.class) == TRANSACTIONS) {
+            return;
+        }
+        mongoTemplate.remove(benchRows, Transaction.class);
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            batch.add(new Transaction("ACC-" + i % 1_000, 1.0 + i % 500, FIRST_DAY.plusDays(i % DAYS), TYPE));
+            if (batch.size() == BATCH_SIZE) {
+                mongoTemplate.insert(batch, Transaction.class);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, Transaction.class);
+        }
+    }
+}
@@ -1,13 +1,25 @@
 package com.course.mongodb.m06;
 
 import com.course.mongodb.m06.domain.Transaction;
+import com.course.mongodb.m06.search.ShapeMetrics;
+import com.course.mongodb.m06.search.TransactionFilter;
+import com.course.mongodb.m06.search.TransactionSearch;
+import com.course.mongodb.m06.search.TransactionSearchService;
+import com.course.mongodb.m06.service.PartitionedDateRangeExecutor;
+import com.course.mongodb.m06.service.TransactionPage;
 import com.course.mongodb.m06.service.TransactionService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,6 +29,12 @@ public class TransactionServiceTest {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private PartitionedDateRangeExecutor partitionedExecutor;
+
+    @Autowired
+    private TransactionSearchService searchService;
+
     @Test
     public void contextLoads() {
     }
@@ -39,4 +57,111 @@ public class TransactionServiceTest {
         List<Transaction> transactions = transactionService.findByAccountId("ACC-002");
         assertTrue(transactions.size() >= 1);
     }
+
+    @Test
+    public void testKeysetPagesByAccountId() {
+        String accountId = "ACC-K" + System.nanoTime();
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        // Two rows share each date, so pages have to break ties on _id.
+        for (int i = 0; i < 5; i++) {
+            transactionService.createTransaction(accountId, 10.00 * i, day.plusDays(i / 2), "DEPOSIT");
+        }
+
+        List<Transaction> seen = new ArrayList<>();
+        TransactionPage page = transactionService.findPageByAccountId(accountId, null, 2);
+        seen.addAll(page.content());
+        while (page.hasNext()) {
+            page = transactionService.findPageByAccountId(accountId, page.next(), 2);
+            seen.addAll(page.content());
+        }
+
+        assertEquals(5, seen.size());
+        assertEquals(5, seen.stream().map(Transaction::getId).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            assertFalse(seen.get(i).getDate().isBefore(seen.get(i - 1).getDate()));
+        }
+        try (Stream<Transaction> stream = transactionService.streamByAccountId(accountId)) {
+            assertEquals(seen.stream().map(Transaction::getId).toList(), stream.map(Transaction::getId).toList());
+        }
+    }
+
+    @Test
+    public void testPartitionedRangeMatchesSequential() {
+        LocalDate start = LocalDate.of(1990, 1, 1);
+        LocalDate end = LocalDate.of(1990, 3, 1);
+        String accountId = "ACC-P" + System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            transactionService.createTransaction(accountId, 1.00 * i, start.plusDays(1 + i * 3L), "DEPOSIT");
+        }
+
+        List<String> sequential = transactionService.findByDateBetween(start, end).stream()
+            .sorted(Comparator.comparing(Transaction::getDate).thenComparing(Transaction::getId))
+            .map(Transaction::getId)
+            .toList();
+        List<String> partitioned = partitionedExecutor.findByDateBetween(start, end, 7).stream()
+            .map(Transaction::getId)
+            .toList();
+        assertEquals(sequential, partitioned);
+
+        AtomicLong consumed = new AtomicLong();
+        assertEquals(sequential.size(), partitionedExecutor.forEach(start, end, 7, row -> consumed.incrementAndGet()));
+        assertEquals(sequential.size(), consumed.get());
+    }
+
+    @Test
+    public void testDynamicSearchCachesShapes() {
+        String accountId = "ACC-S" + System.nanoTime();
+        LocalDate day = LocalDate.of(2024, 6, 1);
+        transactionService.createTransaction(accountId, 50.00, day, "DEPOSIT");
+        transactionService.createTransaction(accountId, 150.00, day.plusDays(1), "DEPOSIT");
+        transactionService.createTransaction(accountId, 250.00, day.plusDays(2), "WITHDRAWAL");
+
+        List<Transaction> deposits = searchService.search(
+            TransactionSearch.create().accountId(accountId).type("DEPOSIT").minAmount(100.00), 10);
+        assertEquals(1, deposits.size());
+        assertEquals(150.00, deposits.get(0).getAmount());
+
+        List<Transaction> inRange = searchService.search(
+            TransactionSearch.create().accountId(accountId).type(null).fromDate(day.plusDays(1)).toDate(day.plusDays(2)), 10);
+        assertEquals(List.of(150.00, 250.00), inRange.stream().map(Transaction::getAmount).toList());
+
+        searchService.search(TransactionSearch.create().accountId(accountId).type("WITHDRAWAL").minAmount(0.0), 10);
+        ShapeMetrics typed = searchService.metrics().stream()
+            .filter(m -> m.filters().equals(Set.of(TransactionFilter.ACCOUNT, TransactionFilter.TYPE, TransactionFilter.MIN_AMOUNT)))
+            .findFirst()
+            .orElseThrow();
+        assertTrue(typed.executions() >= 2);
+        assertTrue(typed.filterTemplate().contains("account_id"));
+        assertThrows(IllegalArgumentException.class, () -> searchService.search(TransactionSearch.create(), 0));
+    }
+
+    @Test
+    public void testFindPageAfter() {
+        Transaction first = transactionService.createTransaction("ACC-PAGE", 10.00, LocalDate.of(2024, 1, 1), "DEPOSIT");
+        Transaction second = transactionService.createTransaction("ACC-PAGE", 20.00, LocalDate.of(2024, 1, 2), "DEPOSIT");
+
+        List<String> seen = new ArrayList<>();
+        String lastSeenId = null;
+        List<Transaction> page;
+        do {
+            page = transactionService.findPageAfter(lastSeenId, 2);
+            page.forEach(item -> seen.add(item.getId()));
+            if (!page.isEmpty()) {
+                lastSeenId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 2);
+
+        assertTrue(seen.contains(first.getId()));
+        assertTrue(seen.contains(second.getId()));
+        assertEquals(seen.size(), new HashSet<>(seen).size());
+    }
+
+    @Test
+    public void testStreamAll() {
+        Transaction created = transactionService.createTransaction("ACC-STREAM", 30.00, LocalDate.of(2024, 1, 3), "DEPOSIT");
+
+        try (Stream<Transaction> items = transactionService.streamAll(2)) {
+            assertTrue(items.anyMatch(item -> item.getId().equals(created.getId())));
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package com.course.mongodb.m07.config;
+
+import com.course.mongodb.m07.domain.Report;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Reports written before (account_id, month) was unique can hold several
+// rows per key, and building the unique index over them fails. Keeps the
+// most recently updated row of each key, then builds the index.
+@Component
+public class ReportKeyIndex {
+
+    static final String INDEX_NAME = "account_month";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int DELETE_BATCH_SIZE = 1_000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public ReportKeyIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Returns the number of duplicate rows removed. A writer can slip a new
+    // duplicate in before the index exists, hence the retry.
+    @EventListener(ApplicationReadyEvent.class)
+    public long ensureUniqueKey() {
+        long removed = 0;
+        for (int attempt = 1; ; attempt++) {
+            removed += removeDuplicates();
+            try {
+                mongoTemplate.indexOps(Report.class).ensureIndex(new Index()
+                    .on("account_id", Sort.Direction.ASC)
+                    .on("month", Sort.Direction.ASC)
+                    .unique()
+                    .named(INDEX_NAME));
+                return removed;
+            } catch (DuplicateKeyException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private long removeDuplicates() {
+        List<Document> pipeline = List.of(
+            new Document("$sort", new Document("updatedAt", -1).append("_id", -1)),
+            new Document("$group", new Document("_id", new Document("account_id", "$account_id").append("month", "$month"))
+                .append("ids", new Document("$push", "$_id"))
+                .append("count", new Document("$sum", 1))),
+            new Document("$match", new Document("count", new Document("$gt", 1))));
+        List<Object> stale = new ArrayList<>();
+        long removed = 0;
+        for (Document key : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Report.class))
+                .aggregate(pipeline).allowDiskUse(true)) {
+            List<?> ids = key.getList("ids", Object.class);
+            stale.addAll(ids.subList(1, ids.size()));
+            if (stale.size() >= DELETE_BATCH_SIZE) {
+                removed += delete(stale);
+            }
+        }
+        return removed + delete(stale);
+    }
+
+    private long delete(List<Object> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long deleted = mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), Report.class).getDeletedCount();
+        ids.clear();
+        return deleted;
+    }
+}
@@ -0,0 +1,11 @@
+package com.course.mongodb.m07.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Drives the periodic ReportCounterService flush and ReportCubeService
+// refresh and rebuild.
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
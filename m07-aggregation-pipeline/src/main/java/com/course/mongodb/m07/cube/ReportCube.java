@@ -0,0 +1,363 @@
+package com.course.mongodb.m07.cube;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Report rows held column-wise: account and month are dictionary-encoded
+ * ints, income and expense are double columns. Per-account, per-month and
+ * grand totals are kept up to date on every upsert, so rollups are a single
+ * array read. Point queries use optimistic reads and do not allocate.
+ *
+ * Single writer, many readers: upserts take the write lock.
+ */
+public class ReportCube {
+
+    private static final int INITIAL_ROWS = 1_024;
+    private static final int INITIAL_KEYS = 64;
+    private static final long EMPTY = -1L;
+
+    private final StampedLock lock = new StampedLock();
+
+    // Dictionaries. Concurrent maps so that lookups outside the lock are safe.
+    private final ConcurrentHashMap<String, Integer> accountCodes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> monthCodes = new ConcurrentHashMap<>();
+    private String[] accounts = new String[INITIAL_KEYS];
+    private String[] months = new String[INITIAL_KEYS];
+
+    // Row columns, plus per-account and per-month row chains.
+    private int size;
+    private int[] accountColumn = new int[INITIAL_ROWS];
+    private int[] monthColumn = new int[INITIAL_ROWS];
+    private double[] incomeColumn = new double[INITIAL_ROWS];
+    private double[] expenseColumn = new double[INITIAL_ROWS];
+    private int[] nextInAccount = new int[INITIAL_ROWS];
+    private int[] nextInMonth = new int[INITIAL_ROWS];
+    private int[] firstByAccount = filled(INITIAL_KEYS);
+    private int[] firstByMonth = filled(INITIAL_KEYS);
+
+    // Rollups.
+    private double[] accountIncome = new double[INITIAL_KEYS];
+    private double[] accountExpense = new double[INITIAL_KEYS];
+    private double[] monthIncome = new double[INITIAL_KEYS];
+    private double[] monthExpense = new double[INITIAL_KEYS];
+    private double totalIncome;
+    private double totalExpense;
+
+    // (account, month) -> row, open addressing on the packed codes.
+    private long[] cellKeys = emptyKeys(INITIAL_ROWS * 2);
+    private int[] cellRows = new int[INITIAL_ROWS * 2];
+
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(String accountId, String month, double income, double expense);
+    }
+
+    // Inserts or replaces the (accountId, month) row; rollups move by the
+    // difference. null amounts count as zero.
+    public void upsert(String accountId, String month, Double income, Double expense) {
+        double newIncome = income == null ? 0 : income;
+        double newExpense = expense == null ? 0 : expense;
+        long stamp = lock.writeLock();
+        try {
+            int account = accountCode(accountId);
+            int monthCode = monthCode(month);
+            long key = pack(account, monthCode);
+            int row = findRow(key);
+            if (row < 0) {
+                row = appendRow(account, monthCode);
+                insertCell(key, row);
+            }
+            double incomeDelta = newIncome - incomeColumn[row];
+            double expenseDelta = newExpense - expenseColumn[row];
+            incomeColumn[row] = newIncome;
+            expenseColumn[row] = newExpense;
+            accountIncome[account] += incomeDelta;
+            accountExpense[account] += expenseDelta;
+            monthIncome[monthCode] += incomeDelta;
+            monthExpense[monthCode] += expenseDelta;
+            totalIncome += incomeDelta;
+            totalExpense += expenseDelta;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public double accountIncome(String accountId) {
+        return rollup(Rollup.ACCOUNT_INCOME, accountCodes.get(accountId));
+    }
+
+    public double accountExpense(String accountId) {
+        return rollup(Rollup.ACCOUNT_EXPENSE, accountCodes.get(accountId));
+    }
+
+    public double monthIncome(String month) {
+        return rollup(Rollup.MONTH_INCOME, monthCodes.get(month));
+    }
+
+    public double monthExpense(String month) {
+        return rollup(Rollup.MONTH_EXPENSE, monthCodes.get(month));
+    }
+
+    public double totalIncome() {
+        long stamp = lock.tryOptimisticRead();
+        double value = totalIncome;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = totalIncome;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    public double totalExpense() {
+        long stamp = lock.tryOptimisticRead();
+        double value = totalExpense;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = totalExpense;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    // NaN when there is no row for the pair.
+    public double income(String accountId, String month) {
+        return cell(accountId, month, true);
+    }
+
+    public double expense(String accountId, String month) {
+        return cell(accountId, month, false);
+    }
+
+    public void forEachRowOfAccount(String accountId, RowVisitor visitor) {
+        Integer account = accountCodes.get(accountId);
+        if (account == null) {
+            return;
+        }
+        long stamp = lock.readLock();
+        try {
+            for (int row = firstByAccount[account]; row >= 0; row = nextInAccount[row]) {
+                visitor.visit(accountId, months[monthColumn[row]], incomeColumn[row], expenseColumn[row]);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void forEachRowOfMonth(String month, RowVisitor visitor) {
+        Integer monthCode = monthCodes.get(month);
+        if (monthCode == null) {
+            return;
+        }
+        long stamp = lock.readLock();
+        try {
+            for (int row = firstByMonth[monthCode]; row >= 0; row = nextInMonth[row]) {
+                visitor.visit(accounts[accountColumn[row]], month, incomeColumn[row], expenseColumn[row]);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private enum Rollup {
+        ACCOUNT_INCOME, ACCOUNT_EXPENSE, MONTH_INCOME, MONTH_EXPENSE
+    }
+
+    private double rollup(Rollup rollup, Integer code) {
+        if (code == null) {
+            return 0;
+        }
+        long stamp = lock.tryOptimisticRead();
+        double value = rollupValue(rollup, code);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = rollupValue(rollup, code);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    // Bounds-checked because an optimistic reader can see a code before the
+    // arrays it indexes have grown; validate() then forces a locked retry.
+    private double rollupValue(Rollup rollup, int code) {
+        double[] values = switch (rollup) {
+            case ACCOUNT_INCOME -> accountIncome;
+            case ACCOUNT_EXPENSE -> accountExpense;
+            case MONTH_INCOME -> monthIncome;
+            case MONTH_EXPENSE -> monthExpense;
+        };
+        return code < values.length ? values[code] : 0;
+    }
+
+    private double cell(String accountId, String month, boolean income) {
+        Integer account = accountCodes.get(accountId);
+        Integer monthCode = monthCodes.get(month);
+        if (account == null || monthCode == null) {
+            return Double.NaN;
+        }
+        long key = pack(account, monthCode);
+        long stamp = lock.tryOptimisticRead();
+        double value = cellValue(key, income);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = cellValue(key, income);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    private double cellValue(long key, boolean income) {
+        int row = findRow(key);
+        double[] column = income ? incomeColumn : expenseColumn;
+        return row >= 0 && row < column.length ? column[row] : Double.NaN;
+    }
+
+    private int accountCode(String accountId) {
+        Integer code = accountCodes.get(accountId);
+        if (code != null) {
+            return code;
+        }
+        int next = accountCodes.size();
+        if (next == accounts.length) {
+            int capacity = next * 2;
+            accounts = Arrays.copyOf(accounts, capacity);
+            accountIncome = Arrays.copyOf(accountIncome, capacity);
+            accountExpense = Arrays.copyOf(accountExpense, capacity);
+            firstByAccount = grow(firstByAccount, capacity);
+        }
+        accounts[next] = accountId;
+        accountCodes.put(accountId, next);
+        return next;
+    }
+
+    private int monthCode(String month) {
+        Integer code = monthCodes.get(month);
+        if (code != null) {
+            return code;
+        }
+        int next = monthCodes.size();
+        if (next == months.length) {
+            int capacity = next * 2;
+            months = Arrays.copyOf(months, capacity);
+            monthIncome = Arrays.copyOf(monthIncome, capacity);
+            monthExpense = Arrays.copyOf(monthExpense, capacity);
+            firstByMonth = grow(firstByMonth, capacity);
+        }
+        months[next] = month;
+        monthCodes.put(month, next);
+        return next;
+    }
+
+    private int appendRow(int account, int monthCode) {
+        if (size == accountColumn.length) {
+            int capacity = size * 2;
+            accountColumn = Arrays.copyOf(accountColumn, capacity);
+            monthColumn = Arrays.copyOf(monthColumn, capacity);
+            incomeColumn = Arrays.copyOf(incomeColumn, capacity);
+            expenseColumn = Arrays.copyOf(expenseColumn, capacity);
+            nextInAccount = Arrays.copyOf(nextInAccount, capacity);
+            nextInMonth = Arrays.copyOf(nextInMonth, capacity);
+        }
+        int row = size++;
+        accountColumn[row] = account;
+        monthColumn[row] = monthCode;
+        nextInAccount[row] = firstByAccount[account];
+        firstByAccount[account] = row;
+        nextInMonth[row] = firstByMonth[monthCode];
+        firstByMonth[monthCode] = row;
+        return row;
+    }
+
+    private int findRow(long key) {
+        long[] keys = cellKeys;
+        int[] rows = cellRows;
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long candidate = keys[slot];
+            if (candidate == key) {
+                // An optimistic reader may pair new keys with old rows
+                // mid-resize; validate() rejects the result.
+                return slot < rows.length ? rows[slot] : -1;
+            }
+            if (candidate == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    // Keeps the table at most half full.
+    private void insertCell(long key, int row) {
+        if (size * 2 > cellKeys.length) {
+            long[] oldKeys = cellKeys;
+            int[] oldRows = cellRows;
+            cellKeys = emptyKeys(oldKeys.length * 2);
+            cellRows = new int[oldKeys.length * 2];
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != EMPTY) {
+                    place(oldKeys[slot], oldRows[slot]);
+                }
+            }
+        }
+        place(key, row);
+    }
+
+    private void place(long key, int row) {
+        int mask = cellKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (cellKeys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        cellKeys[slot] = key;
+        cellRows[slot] = row;
+    }
+
+    private static long pack(int account, int month) {
+        return ((long) account << 32) | month;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int[] filled(int length) {
+        int[] array = new int[length];
+        Arrays.fill(array, -1);
+        return array;
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        int[] grown = Arrays.copyOf(array, capacity);
+        Arrays.fill(grown, array.length, capacity, -1);
+        return grown;
+    }
+
+    private static long[] emptyKeys(int length) {
+        long[] keys = new long[length];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+}
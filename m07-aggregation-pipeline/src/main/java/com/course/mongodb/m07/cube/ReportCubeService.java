@@ -0,0 +1,86 @@
+package com.course.mongodb.m07.cube;
+
+import com.course.mongodb.m07.domain.Report;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Read-side cache of all reports in a {@link ReportCube}. Loaded in full at
+ * startup, then refreshed every {@link #REFRESH_INTERVAL_MS} from reports
+ * whose updatedAt moved. Deleted reports leave no trace to refresh from, so
+ * the cube is also rebuilt every {@link #REBUILD_INTERVAL_MS}; until then
+ * they stay in the rollups. Bulk writers whose stamp can lag the write by more
+ * than the clock skew, such as a long $merge stamped with $$NOW, call
+ * {@link #refreshSince(Instant)} with their start time when done.
+ */
+@Service
+public class ReportCubeService {
+
+    public static final long REFRESH_INTERVAL_MS = 5_000;
+    public static final long REBUILD_INTERVAL_MS = 600_000;
+    // Writers stamp updatedAt with the app or the server clock; re-reading
+    // a short overlap is harmless because upserts replace whole rows.
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(5);
+    private static final int BATCH_SIZE = 1_000;
+
+    private final MongoTemplate mongoTemplate;
+    private volatile ReportCube cube = new ReportCube();
+    private volatile Instant refreshedAt = Instant.EPOCH;
+
+    public ReportCubeService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public ReportCube cube() {
+        return cube;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelay = REBUILD_INTERVAL_MS, fixedDelay = REBUILD_INTERVAL_MS)
+    public synchronized void rebuild() {
+        Instant startedAt = Instant.now();
+        ReportCube fresh = new ReportCube();
+        load(new Query(), fresh);
+        cube = fresh;
+        refreshedAt = startedAt;
+    }
+
+    // Returns the number of rows applied.
+    @Scheduled(fixedDelay = REFRESH_INTERVAL_MS)
+    public synchronized int refresh() {
+        Instant startedAt = Instant.now();
+        int applied = load(Query.query(Criteria.where("updatedAt").gte(refreshedAt.minus(CLOCK_SKEW)))
+            .with(Sort.by("updatedAt")), cube);
+        refreshedAt = startedAt;
+        return applied;
+    }
+
+    // Re-reads rows stamped since the given time without moving the
+    // regular refresh watermark. Returns the number of rows applied.
+    public synchronized int refreshSince(Instant since) {
+        return load(Query.query(Criteria.where("updatedAt").gte(since.minus(CLOCK_SKEW)))
+            .with(Sort.by("updatedAt")), cube);
+    }
+
+    private int load(Query query, ReportCube target) {
+        query.fields().include("accountId", "month", "income", "expense");
+        int count = 0;
+        try (Stream<Report> reports = mongoTemplate.stream(query.cursorBatchSize(BATCH_SIZE), Report.class)) {
+            for (Report report : (Iterable<Report>) reports::iterator) {
+                target.upsert(report.getAccountId(), report.getMonth(), report.getIncome(), report.getExpense());
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -1,9 +1,14 @@
 package com.course.mongodb.m07.domain;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import java.time.Instant;
 
+// Natural key (account_id, month); $merge in MonthlyReportJob matches on
+// it and needs it unique. ReportKeyIndex builds that index at startup
+// after removing duplicates left from before it existed.
 @Document(collection = "reports")
 public class Report {
     @Id
@@ -18,6 +23,10 @@ public class Report {
 
     private Double expense;
 
+    // Set by every writer; ReportCubeService refreshes from it.
+    @Indexed
+    private Instant updatedAt;
+
     public Report() {
     }
 
@@ -38,4 +47,6 @@ public class Report {
     public void setIncome(Double income) { this.income = income; }
     public Double getExpense() { return expense; }
     public void setExpense(Double expense) { this.expense = expense; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
 }
@@ -1,6 +1,7 @@
 package com.course.mongodb.m07.repository;
 
 import com.course.mongodb.m07.domain.Report;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 
@@ -8,4 +9,6 @@ public interface ReportRepository extends MongoRepository<Report, String> {
     List<Report> findByAccountId(String accountId);
     List<Report> findByMonth(String month);
     List<Report> findByAccountIdAndMonth(String accountId, String month);
+    List<Report> findAllByOrderByIdAsc(Limit limit);
+    List<Report> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
@@ -0,0 +1,211 @@
+package com.course.mongodb.m07.service;
+
+import com.course.mongodb.m07.cube.ReportCubeService;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Builds monthly reports from the transactions collection inside the
+ * database: one pipeline groups by account and month, sums income and
+ * expense by type and $merges the result into reports.
+ *
+ * The incremental run only recomputes months that received transactions
+ * since the previous run, tracked by the highest transaction _id seen.
+ * ObjectIds are stamped by the client, so an insert can commit after a
+ * higher _id was already read; each run re-scans {@link #RESCAN_WINDOW}
+ * below the last watermark to catch those. Inserts later than that, or
+ * from a client clock further behind, are missed, as are edits and
+ * deletes of old transactions; use {@link #runFull()} after corrections.
+ */
+@Service
+public class MonthlyReportJob {
+
+    static final String TRANSACTIONS = "transactions";
+    static final String REPORTS = "reports";
+    static final String JOBS = "report_jobs";
+    static final String JOB_ID = "monthly-reports";
+    static final Duration RESCAN_WINDOW = Duration.ofMinutes(5);
+
+    static final List<String> INCOME_TYPES = List.of("DEPOSIT", "TRANSFER_IN", "INTEREST");
+    static final List<String> EXPENSE_TYPES = List.of("WITHDRAWAL", "TRANSFER_OUT", "PAYMENT", "FEE");
+
+    // LocalDate is stored as midnight in the JVM zone, so months have to be
+    // cut in the same zone or the first day of a month lands in the previous
+    // one.
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final MongoTemplate mongoTemplate;
+    private final ReportCubeService reportCubeService;
+
+    public MonthlyReportJob(MongoTemplate mongoTemplate, ReportCubeService reportCubeService) {
+        this.mongoTemplate = mongoTemplate;
+        this.reportCubeService = reportCubeService;
+    }
+
+    // Reports whose transactions are all gone get no row from the $merge;
+    // anything not stamped since the run started is removed afterwards.
+    // The start is read from the server because $$NOW and the counters'
+    // $currentDate use its clock. Reports created without transactions,
+    // e.g. through ReportService.createReport, are removed as well.
+    public ReportRunResult runFull() {
+        Date startedAt = serverTime();
+        ObjectId watermark = latestTransactionId();
+        List<String> months = touchedMonths(watermarkFilter(null, watermark));
+        aggregateInto(watermark == null ? Filters.empty() : Filters.lte("_id", watermark));
+        mongoTemplate.getCollection(REPORTS).deleteMany(Filters.not(Filters.gte("updatedAt", startedAt)));
+        saveWatermark(watermark);
+        return new ReportRunResult(false, months);
+    }
+
+    public ReportRunResult runIncremental() {
+        ObjectId lastRun = loadWatermark();
+        ObjectId watermark = latestTransactionId();
+        if (watermark == null || watermark.equals(lastRun)) {
+            return new ReportRunResult(true, List.of());
+        }
+        // Months are recomputed whole, so re-scanning rows already counted
+        // is harmless.
+        List<String> months = touchedMonths(watermarkFilter(rescanFrom(lastRun), watermark));
+        if (!months.isEmpty()) {
+            // Whole months are recomputed so sums stay exact; rows above the
+            // watermark are left for the next run.
+            aggregateInto(Filters.and(Filters.lte("_id", watermark), inMonths(months)));
+        }
+        saveWatermark(watermark);
+        return new ReportRunResult(true, months);
+    }
+
+    // $$NOW is fixed when the aggregation starts, so on a long run the rows
+    // carry a stamp the cube's regular refresh may already have passed.
+    private void aggregateInto(Bson match) {
+        Instant startedAt = Instant.now();
+        List<Document> pipeline = new ArrayList<>(accountMonthTotals(match));
+        pipeline.add(new Document("$set", new Document("updatedAt", "$$NOW")));
+        pipeline.add(new Document("$merge", new Document("into", REPORTS)
+            .append("on", List.of("account_id", "month"))
+            .append("whenMatched", "merge")
+            .append("whenNotMatched", "insert")));
+        transactions().aggregate(pipeline).allowDiskUse(true).toCollection();
+        reportCubeService.refreshSince(startedAt);
+    }
+
+    // Stages producing one {account_id, month, income, expense} document per
+    // account and month, the shape of a report.
+    List<Document> accountMonthTotals(Bson match) {
+        return List.of(
+            new Document("$match", match),
+            new Document("$group", new Document("_id", new Document("account_id", "$account_id")
+                    .append("month", monthOf("$date")))
+                .append("income", sumWhenTypeIn(INCOME_TYPES))
+                .append("expense", sumWhenTypeIn(EXPENSE_TYPES))),
+            new Document("$project", new Document("_id", 0)
+                .append("account_id", "$_id.account_id")
+                .append("month", "$_id.month")
+                .append("income", 1)
+                .append("expense", 1)));
+    }
+
+    private List<String> touchedMonths(Bson filter) {
+        List<Document> pipeline = List.of(
+            new Document("$match", filter),
+            new Document("$group", new Document("_id", monthOf("$date"))),
+            new Document("$sort", new Document("_id", 1)));
+        List<String> months = new ArrayList<>();
+        for (Document month : transactions().aggregate(pipeline)) {
+            months.add(month.getString("_id"));
+        }
+        return months;
+    }
+
+    private Bson inMonths(List<String> months) {
+        List<Bson> ranges = new ArrayList<>(months.size());
+        for (String month : months) {
+            YearMonth yearMonth = YearMonth.parse(month);
+            ranges.add(Filters.and(
+                Filters.gte("date", startOf(yearMonth.atDay(1))),
+                Filters.lt("date", startOf(yearMonth.plusMonths(1).atDay(1)))));
+        }
+        return Filters.or(ranges);
+    }
+
+    private Date startOf(LocalDate day) {
+        return Date.from(day.atStartOfDay(zone).toInstant());
+    }
+
+    private Document monthOf(String dateField) {
+        return new Document("$dateToString", new Document("format", "%Y-%m")
+            .append("date", dateField)
+            .append("timezone", zone.getId()));
+    }
+
+    private static Document sumWhenTypeIn(List<String> types) {
+        return new Document("$sum", new Document("$cond", List.of(
+            new Document("$in", List.of("$type", types)), "$amount", 0)));
+    }
+
+    private static Bson watermarkFilter(ObjectId after, ObjectId upTo) {
+        if (upTo == null) {
+            return Filters.empty();
+        }
+        return after == null
+            ? Filters.lte("_id", upTo)
+            : Filters.and(Filters.gt("_id", after), Filters.lte("_id", upTo));
+    }
+
+    private static ObjectId rescanFrom(ObjectId lastRun) {
+        if (lastRun == null) {
+            return null;
+        }
+        long seconds = lastRun.getTimestamp() - RESCAN_WINDOW.toSeconds();
+        return ObjectId.getSmallestWithDate(new Date(Math.max(0, seconds) * 1000));
+    }
+
+    private Date serverTime() {
+        return mongoTemplate.getDb().runCommand(new Document("hello", 1)).getDate("localTime");
+    }
+
+    private ObjectId latestTransactionId() {
+        Document latest = transactions().find()
+            .projection(new Document("_id", 1))
+            .sort(Sorts.descending("_id"))
+            .first();
+        return latest == null ? null : latest.getObjectId("_id");
+    }
+
+    private ObjectId loadWatermark() {
+        Document job = jobs().find(Filters.eq("_id", JOB_ID)).first();
+        return job == null ? null : job.getObjectId("lastTransactionId");
+    }
+
+    private void saveWatermark(ObjectId watermark) {
+        if (watermark == null) {
+            return;
+        }
+        jobs().replaceOne(Filters.eq("_id", JOB_ID),
+            new Document("_id", JOB_ID).append("lastTransactionId", watermark).append("lastRunAt", new Date()),
+            new ReplaceOptions().upsert(true));
+    }
+
+    private MongoCollection<Document> transactions() {
+        return mongoTemplate.getCollection(TRANSACTIONS);
+    }
+
+    private MongoCollection<Document> jobs() {
+        return mongoTemplate.getCollection(JOBS);
+    }
+}
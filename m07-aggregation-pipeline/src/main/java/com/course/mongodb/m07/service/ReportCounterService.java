@@ -0,0 +1,165 @@
+package com.course.mongodb.m07.service;
+
+import com.course.mongodb.m07.domain.Report;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-time report maintenance: each transaction write calls
+ * {@link #record}, which only adds to an in-memory delta for its
+ * (account, month). {@link #flush} runs every {@link #FLUSH_INTERVAL_MS} and
+ * sends one upsert $inc per (account, month), so a hot account costs one
+ * write per window instead of one per transaction.
+ *
+ * The counters and {@link MonthlyReportJob} write the same reports and do
+ * not coordinate: a delta still pending when the job recomputes its month
+ * is added on top of totals that already include it. Use one path per
+ * deployment; after running the job while counters are live, check
+ * {@link #reconcile()} and rerun {@link MonthlyReportJob#runFull()} once
+ * the counters are drained.
+ */
+@Service
+public class ReportCounterService {
+
+    public static final long FLUSH_INTERVAL_MS = 1_000;
+    // Sums are doubles, so allow for rounding when reconciling.
+    private static final double TOLERANCE = 0.005;
+
+    private final MongoTemplate mongoTemplate;
+    private final MonthlyReportJob monthlyReportJob;
+    private final ConcurrentHashMap<Key, Delta> pending = new ConcurrentHashMap<>();
+
+    public ReportCounterService(MongoTemplate mongoTemplate, MonthlyReportJob monthlyReportJob) {
+        this.mongoTemplate = mongoTemplate;
+        this.monthlyReportJob = monthlyReportJob;
+    }
+
+    // Types that are neither income nor expense do not touch the report,
+    // the same as in MonthlyReportJob.
+    public void record(String accountId, LocalDate date, String type, double amount) {
+        Delta delta;
+        if (MonthlyReportJob.INCOME_TYPES.contains(type)) {
+            delta = new Delta(amount, 0);
+        } else if (MonthlyReportJob.EXPENSE_TYPES.contains(type)) {
+            delta = new Delta(0, amount);
+        } else {
+            return;
+        }
+        pending.merge(new Key(accountId, YearMonth.from(date).toString()), delta, Delta::plus);
+    }
+
+    public int pendingKeys() {
+        return pending.size();
+    }
+
+    // Each key is removed atomically before it is written; a record() that
+    // races with the flush starts a fresh delta for the next window.
+    // Returns the number of (account, month) reports updated.
+    @Scheduled(fixedDelay = FLUSH_INTERVAL_MS)
+    public synchronized int flush() {
+        List<Map.Entry<Key, Delta>> batch = new ArrayList<>();
+        for (Key key : pending.keySet()) {
+            Delta delta = pending.remove(key);
+            if (delta != null) {
+                batch.add(Map.entry(key, delta));
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Report.class);
+        for (Map.Entry<Key, Delta> entry : batch) {
+            Key key = entry.getKey();
+            Delta delta = entry.getValue();
+            bulk.upsert(
+                Query.query(Criteria.where("accountId").is(key.accountId()).and("month").is(key.month())),
+                new Update().inc("income", delta.income()).inc("expense", delta.expense()).currentDate("updatedAt"));
+        }
+        try {
+            bulk.execute();
+            return batch.size();
+        } catch (BulkOperationException e) {
+            // Put failed deltas back so the next window retries them.
+            for (BulkWriteError error : e.getErrors()) {
+                Map.Entry<Key, Delta> failed = batch.get(error.getIndex());
+                pending.merge(failed.getKey(), failed.getValue(), Delta::plus);
+            }
+            return batch.size() - e.getErrors().size();
+        } catch (RuntimeException e) {
+            // Nothing is known to be applied (e.g. the connection dropped), so
+            // the whole batch goes back for the next window.
+            for (Map.Entry<Key, Delta> entry : batch) {
+                pending.merge(entry.getKey(), entry.getValue(), Delta::plus);
+            }
+            throw e;
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Recomputes every (account, month) from transactions on the server and
+    // returns the reports that disagree or are missing.
+    public List<ReportMismatch> reconcile() {
+        List<Document> pipeline = new ArrayList<>(monthlyReportJob.accountMonthTotals(Filters.empty()));
+        pipeline.add(new Document("$lookup", new Document("from", MonthlyReportJob.REPORTS)
+            .append("let", new Document("account", "$account_id").append("month", "$month"))
+            .append("pipeline", List.of(new Document("$match", new Document("$expr", new Document("$and", List.of(
+                new Document("$eq", List.of("$account_id", "$$account")),
+                new Document("$eq", List.of("$month", "$$month"))))))))
+            .append("as", "stored")));
+        pipeline.add(new Document("$set", new Document("stored", new Document("$first", "$stored"))));
+        pipeline.add(new Document("$match", new Document("$expr", new Document("$or", List.of(
+            new Document("$eq", List.of(new Document("$type", "$stored"), "missing")),
+            differs("income"),
+            differs("expense"))))));
+
+        List<ReportMismatch> mismatches = new ArrayList<>();
+        for (Document row : mongoTemplate.getCollection(MonthlyReportJob.TRANSACTIONS).aggregate(pipeline).allowDiskUse(true)) {
+            Document stored = row.get("stored", Document.class);
+            mismatches.add(new ReportMismatch(row.getString("account_id"), row.getString("month"),
+                number(row.get("income")), number(row.get("expense")),
+                stored == null ? null : number(stored.get("income")),
+                stored == null ? null : number(stored.get("expense"))));
+        }
+        return mismatches;
+    }
+
+    private static Document differs(String field) {
+        return new Document("$gt", List.of(new Document("$abs", new Document("$subtract", List.of(
+            "$" + field, new Document("$ifNull", List.of("$stored." + field, 0))))), TOLERANCE));
+    }
+
+    private static double number(Object value) {
+        return value == null ? 0 : ((Number) value).doubleValue();
+    }
+
+    private record Key(String accountId, String month) {
+    }
+
+    private record Delta(double income, double expense) {
+        Delta plus(Delta other) {
+            return new Delta(income + other.income, expense + other.expense);
+        }
+    }
+}
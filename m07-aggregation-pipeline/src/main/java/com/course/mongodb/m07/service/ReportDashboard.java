@@ -0,0 +1,18 @@
+package com.course.mongodb.m07.service;
+
+import java.util.List;
+
+// Everything the finance dashboard shows, from one $facet round trip.
+public record ReportDashboard(List<AccountExpense> topAccountsByExpense, List<MonthTrend> monthlyTrend,
+        double totalIncome, double totalExpense) {
+
+    public double netPosition() {
+        return totalIncome - totalExpense;
+    }
+
+    public record AccountExpense(String accountId, double expense) {
+    }
+
+    public record MonthTrend(String month, double income, double expense) {
+    }
+}
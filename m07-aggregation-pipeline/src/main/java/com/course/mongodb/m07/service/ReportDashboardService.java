@@ -0,0 +1,94 @@
+package com.course.mongodb.m07.service;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds {@link ReportDashboard} with a single aggregation: one $match over
+ * reports feeding a $facet with the top accounts, the monthly trend and the
+ * totals, instead of a round trip and a scan per widget.
+ */
+@Service
+public class ReportDashboardService {
+
+    public static final int DEFAULT_TOP_ACCOUNTS = 10;
+
+    private final MongoTemplate mongoTemplate;
+
+    public ReportDashboardService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public ReportDashboard dashboard() {
+        return dashboard(null, null, DEFAULT_TOP_ACCOUNTS);
+    }
+
+    // Months are yyyy-MM and inclusive; null leaves that side open.
+    public ReportDashboard dashboard(String fromMonth, String toMonth, int topAccounts) {
+        if (topAccounts <= 0) {
+            throw new IllegalArgumentException("Top accounts must be positive");
+        }
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", monthFilter(fromMonth, toMonth)));
+        pipeline.add(new Document("$facet", facets(topAccounts)));
+        Document result = mongoTemplate.getCollection(MonthlyReportJob.REPORTS).aggregate(pipeline).first();
+        return toDashboard(result);
+    }
+
+    // The $facet branches by name. Each is also a valid pipeline on its own,
+    // which is how the benchmark reproduces the one-call-per-widget baseline.
+    public static Document facets(int topAccounts) {
+        return new Document("topAccounts", List.of(
+                new Document("$group", new Document("_id", "$account_id").append("expense", sum("$expense"))),
+                new Document("$sort", new Document("expense", -1).append("_id", 1)),
+                new Document("$limit", topAccounts)))
+            .append("trend", List.of(
+                new Document("$group", new Document("_id", "$month")
+                    .append("income", sum("$income"))
+                    .append("expense", sum("$expense"))),
+                new Document("$sort", new Document("_id", 1))))
+            .append("totals", List.of(
+                new Document("$group", new Document("_id", null)
+                    .append("income", sum("$income"))
+                    .append("expense", sum("$expense")))));
+    }
+
+    private static Document monthFilter(String fromMonth, String toMonth) {
+        Document range = new Document();
+        if (fromMonth != null) {
+            range.append("$gte", fromMonth);
+        }
+        if (toMonth != null) {
+            range.append("$lte", toMonth);
+        }
+        return range.isEmpty() ? new Document() : new Document("month", range);
+    }
+
+    private static ReportDashboard toDashboard(Document result) {
+        List<ReportDashboard.AccountExpense> topAccounts = new ArrayList<>();
+        for (Document row : result.getList("topAccounts", Document.class)) {
+            topAccounts.add(new ReportDashboard.AccountExpense(row.getString("_id"), number(row.get("expense"))));
+        }
+        List<ReportDashboard.MonthTrend> trend = new ArrayList<>();
+        for (Document row : result.getList("trend", Document.class)) {
+            trend.add(new ReportDashboard.MonthTrend(row.getString("_id"),
+                number(row.get("income")), number(row.get("expense"))));
+        }
+        List<Document> totals = result.getList("totals", Document.class);
+        Document total = totals.isEmpty() ? new Document() : totals.get(0);
+        return new ReportDashboard(topAccounts, trend, number(total.get("income")), number(total.get("expense")));
+    }
+
+    // Reports may carry null amounts; $sum skips them.
+    private static Document sum(String field) {
+        return new Document("$sum", field);
+    }
+
+    private static double number(Object value) {
+        return value == null ? 0 : ((Number) value).doubleValue();
+    }
+}
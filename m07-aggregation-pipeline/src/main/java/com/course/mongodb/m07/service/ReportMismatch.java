@@ -0,0 +1,7 @@
+package com.course.mongodb.m07.service;
+
+// A report whose stored totals differ from a recompute over transactions.
+// actual values are null when the report is missing.
+public record ReportMismatch(String accountId, String month, double expectedIncome, double expectedExpense,
+        Double actualIncome, Double actualExpense) {
+}
@@ -0,0 +1,7 @@
+package com.course.mongodb.m07.service;
+
+import java.util.List;
+
+// months are the yyyy-MM months whose reports were recomputed.
+public record ReportRunResult(boolean incremental, List<String> months) {
+}
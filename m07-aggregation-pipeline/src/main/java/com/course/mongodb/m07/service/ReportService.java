@@ -2,20 +2,30 @@ package com.course.mongodb.m07.service;
 
 import com.course.mongodb.m07.domain.Report;
 import com.course.mongodb.m07.repository.ReportRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class ReportService {
 
+    private static final int DEFAULT_STREAM_BATCH_SIZE = 500;
+
     private final ReportRepository repository;
+    private final MongoTemplate mongoTemplate;
 
-    public ReportService(ReportRepository repository) {
+    public ReportService(ReportRepository repository, MongoTemplate mongoTemplate) {
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public Report createReport(String accountId, String month, Double income, Double expense) {
         Report report = new Report(accountId, month, income, expense);
+        report.setUpdatedAt(Instant.now());
         return repository.save(report);
     }
 
@@ -23,6 +33,20 @@ public class ReportService {
         return repository.findAll();
     }
 
+    public Stream<Report> streamAll() {
+        return streamAll(DEFAULT_STREAM_BATCH_SIZE);
+    }
+
+    public Stream<Report> streamAll(int batchSize) {
+        return mongoTemplate.stream(new Query().cursorBatchSize(batchSize), Report.class);
+    }
+
+    public List<Report> findPageAfter(String lastSeenId, int pageSize) {
+        return lastSeenId == null
+            ? repository.findAllByOrderByIdAsc(Limit.of(pageSize))
+            : repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, Limit.of(pageSize));
+    }
+
     public Report findById(String id) {
         return repository.findById(id).orElse(null);
     }
@@ -31,6 +55,10 @@ public class ReportService {
         return repository.findByAccountId(accountId);
     }
 
+    public Report findByAccountIdAndMonth(String accountId, String month) {
+        return repository.findByAccountIdAndMonth(accountId, month).stream().findFirst().orElse(null);
+    }
+
     public List<Report> findByMonth(String month) {
         return repository.findByMonth(month);
     }
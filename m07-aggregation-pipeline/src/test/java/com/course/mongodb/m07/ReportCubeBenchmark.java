@@ -0,0 +1,114 @@
+package com.course.mongodb.m07;
+
+import com.course.mongodb.m07.cube.ReportCube;
+import com.course.mongodb.m07.domain.Report;
+import com.course.mongodb.m07.repository.ReportRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Heap footprint and query latency of the report cube against the
+ * repository calls the dashboards make today, on 10k accounts x 24 months.
+ */
+@SpringBootTest(properties = "spring.data.mongodb.database=" + ReportBenchmarkData.DATABASE)
+@Tag("benchmark")
+public class ReportCubeBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int REPOSITORY_QUERIES = 2_000;
+    private static final int CUBE_QUERIES = 2_000_000;
+
+    @Autowired
+    private ReportRepository repository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void compareCubeWithRepository() {
+        ReportBenchmarkData.generate(mongoTemplate);
+
+        long listBytes = retainedBytes(repository::findAll);
+        ReportCube[] loaded = new ReportCube[1];
+        long cubeBytes = retainedBytes(() -> loaded[0] = loadCube());
+        ReportCube cube = loaded[0];
+
+        double repositoryAccount = micros(REPOSITORY_QUERIES, i -> {
+            double sum = 0;
+            for (Report report : repository.findByAccountId(ReportBenchmarkData.account(i))) {
+                sum += report.getIncome();
+            }
+            return sum;
+        });
+        double cubeAccount = micros(CUBE_QUERIES, i -> cube.accountIncome(ReportBenchmarkData.account(i)));
+        double repositoryMonth = micros(REPOSITORY_QUERIES / 20, i -> {
+            double sum = 0;
+            for (Report report : repository.findByMonth(ReportBenchmarkData.month(i % ReportBenchmarkData.MONTHS))) {
+                sum += report.getExpense();
+            }
+            return sum;
+        });
+        double cubeMonth = micros(CUBE_QUERIES, i -> cube.monthExpense(ReportBenchmarkData.month(i % ReportBenchmarkData.MONTHS)));
+
+        System.out.printf("%-24s %14s %14s%n", "", "repository", "cube");
+        System.out.printf("%-24s %14.1f %14.1f%n", "heap MB", listBytes / 1048576.0, cubeBytes / 1048576.0);
+        System.out.printf("%-24s %14.2f %14.4f%n", "account income us/op", repositoryAccount, cubeAccount);
+        System.out.printf("%-24s %14.2f %14.4f%n", "month expense us/op", repositoryMonth, cubeMonth);
+
+        assertEquals(cube.accountIncome(ReportBenchmarkData.account(7)),
+            repository.findByAccountId(ReportBenchmarkData.account(7)).stream().mapToDouble(Report::getIncome).sum(), 0.001);
+    }
+
+    // Same load as ReportCubeService.rebuild, into a cube this test owns.
+    private ReportCube loadCube() {
+        ReportCube cube = new ReportCube();
+        try (Stream<Report> reports = mongoTemplate.stream(new Query().cursorBatchSize(BATCH_SIZE), Report.class)) {
+            reports.forEach(r -> cube.upsert(r.getAccountId(), r.getMonth(), r.getIncome(), r.getExpense()));
+        }
+        return cube;
+    }
+
+    @FunctionalInterface
+    private interface Lookup {
+        double run(int i);
+    }
+
+    private double micros(int iterations, Lookup query) {
+        double sink = 0;
+        for (int i = 0; i < Math.min(iterations, 10_000); i++) {
+            sink += query.run(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += query.run(i);
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / iterations;
+        assertFalse(Double.isNaN(sink));
+        return micros;
+    }
+
+    private long retainedBytes(Supplier<Object> load) {
+        long before = usedHeapAfterGc();
+        Object retained = load.get();
+        long after = usedHeapAfterGc();
+        assertNotNull(retained);
+        return after - before;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,83 @@
+package com.course.mongodb.m07;
+
+import com.course.mongodb.m07.domain.Report;
+import com.course.mongodb.m07.repository.ReportRepository;
+import com.course.mongodb.m07.service.ReportDashboard;
+import com.course.mongodb.m07.service.ReportDashboardService;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dashboard latency: one $facet aggregation against the same widgets fetched
+ * one call at a time, i.e. one aggregation per widget plus the repository
+ * reads for the latest month and the top account.
+ */
+@SpringBootTest(properties = "spring.data.mongodb.database=" + ReportBenchmarkData.DATABASE)
+@Tag("benchmark")
+public class ReportDashboardBenchmark {
+
+    private static final int TOP_ACCOUNTS = 10;
+    private static final int WARMUP = 3;
+    private static final int RUNS = 20;
+
+    @Autowired
+    private ReportDashboardService dashboardService;
+
+    @Autowired
+    private ReportRepository repository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void compareFacetWithSequentialCalls() {
+        ReportBenchmarkData.generate(mongoTemplate);
+
+        ReportDashboard dashboard = dashboardService.dashboard(null, null, TOP_ACCOUNTS);
+        double facetMillis = millis(() -> dashboardService.dashboard(null, null, TOP_ACCOUNTS));
+        double sequentialMillis = millis(this::sequential);
+
+        System.out.printf("%-14s %10s %12s%n", "dashboard", "ms", "round trips");
+        System.out.printf("%-14s %10.1f %12d%n", "$facet", facetMillis, 1);
+        System.out.printf("%-14s %10.1f %12d%n", "sequential", sequentialMillis, 5);
+
+        assertEquals(TOP_ACCOUNTS, dashboard.topAccountsByExpense().size());
+        assertEquals(dashboard.totalIncome() - dashboard.totalExpense(), dashboard.netPosition(), 0.001);
+    }
+
+    // What the dashboard did before: a round trip, and a scan, per widget.
+    private Object sequential() {
+        Document facets = ReportDashboardService.facets(TOP_ACCOUNTS);
+        List<Document> top = aggregate(facets.getList("topAccounts", Document.class));
+        List<Document> trend = aggregate(facets.getList("trend", Document.class));
+        List<Document> totals = aggregate(facets.getList("totals", Document.class));
+        List<Report> latestMonth = repository.findByMonth(trend.get(trend.size() - 1).getString("_id"));
+        List<Report> topAccount = repository.findByAccountId(top.get(0).getString("_id"));
+        return List.of(totals, latestMonth, topAccount);
+    }
+
+    private List<Document> aggregate(List<Document> pipeline) {
+        return mongoTemplate.getCollection("reports").aggregate(pipeline).into(new ArrayList<>());
+    }
+
+    private double millis(Supplier<Object> dashboard) {
+        for (int i = 0; i < WARMUP; i++) {
+            assertNotNull(dashboard.get());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            assertNotNull(dashboard.get());
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / RUNS;
+    }
+}
@@ -1,10 +1,31 @@
 package com.course.mongodb.m07;
 
+import com.course.mongodb.m07.config.ReportKeyIndex;
+import com.course.mongodb.m07.cube.ReportCube;
+import com.course.mongodb.m07.cube.ReportCubeService;
 import com.course.mongodb.m07.domain.Report;
+import com.course.mongodb.m07.service.MonthlyReportJob;
+import com.course.mongodb.m07.service.ReportDashboard;
+import com.course.mongodb.m07.service.ReportDashboardService;
+import com.course.mongodb.m07.service.ReportCounterService;
+import com.course.mongodb.m07.service.ReportMismatch;
+import com.course.mongodb.m07.service.ReportRunResult;
 import com.course.mongodb.m07.service.ReportService;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -14,16 +35,36 @@ public class ReportServiceTest {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private MonthlyReportJob monthlyReportJob;
+
+    @Autowired
+    private ReportCounterService reportCounterService;
+
+    @Autowired
+    private ReportCubeService reportCubeService;
+
+    @Autowired
+    private ReportDashboardService dashboardService;
+
+    @Autowired
+    private ReportKeyIndex reportKeyIndex;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Test
     public void contextLoads() {
     }
 
     @Test
     public void testCreateReport() {
-        Report report = reportService.createReport("ACC-001", "2024-01", 5000.00, 3000.00);
+        // (account_id, month) is unique, so each run needs its own account.
+        String accountId = "ACC-001-" + System.nanoTime();
+        Report report = reportService.createReport(accountId, "2024-01", 5000.00, 3000.00);
         
         assertNotNull(report.getId());
-        assertEquals("ACC-001", report.getAccountId());
+        assertEquals(accountId, report.getAccountId());
         assertEquals("2024-01", report.getMonth());
         assertEquals(5000.00, report.getIncome());
         assertEquals(3000.00, report.getExpense());
@@ -31,9 +72,237 @@ public class ReportServiceTest {
 
     @Test
     public void testFindByAccountId() {
-        reportService.createReport("ACC-002", "2024-02", 4000.00, 2000.00);
+        String accountId = "ACC-002-" + System.nanoTime();
+        reportService.createReport(accountId, "2024-02", 4000.00, 2000.00);
         
-        var reports = reportService.findByAccountId("ACC-002");
+        var reports = reportService.findByAccountId(accountId);
         assertTrue(reports.size() >= 1);
     }
+
+    @Test
+    public void testUniqueKeyIndexRemovesLegacyDuplicates() {
+        String accountId = "ACC-U" + System.nanoTime();
+        mongoTemplate.indexOps(Report.class).dropIndex("account_month");
+        mongoTemplate.getCollection("reports").insertMany(List.of(
+            new Document("account_id", accountId).append("month", "2024-01").append("income", 1.0)
+                .append("updatedAt", Date.from(Instant.parse("2024-01-01T00:00:00Z"))),
+            new Document("account_id", accountId).append("month", "2024-01").append("income", 2.0)
+                .append("updatedAt", Date.from(Instant.parse("2024-02-01T00:00:00Z")))));
+
+        assertTrue(reportKeyIndex.ensureUniqueKey() >= 1);
+
+        List<Report> rows = reportService.findByAccountId(accountId);
+        assertEquals(1, rows.size());
+        assertEquals(2.0, rows.get(0).getIncome());
+        assertTrue(mongoTemplate.indexOps(Report.class).getIndexInfo().stream()
+            .anyMatch(index -> index.getName().equals("account_month") && index.isUnique()));
+    }
+
+    @Test
+    public void testMonthlyReportJobMergesIncrementally() {
+        String accountId = "ACC-J" + System.nanoTime();
+        monthlyReportJob.runIncremental();
+
+        insertTransaction(accountId, 1000.00, LocalDate.of(2023, 3, 1), "DEPOSIT");
+        insertTransaction(accountId, 300.00, LocalDate.of(2023, 3, 31), "WITHDRAWAL");
+        insertTransaction(accountId, 200.00, LocalDate.of(2023, 4, 10), "DEPOSIT");
+        ReportRunResult first = monthlyReportJob.runIncremental();
+        assertTrue(first.months().containsAll(List.of("2023-03", "2023-04")));
+
+        Report march = reportService.findByAccountIdAndMonth(accountId, "2023-03");
+        assertEquals(1000.00, march.getIncome());
+        assertEquals(300.00, march.getExpense());
+
+        insertTransaction(accountId, 50.00, LocalDate.of(2023, 3, 15), "FEE");
+        ReportRunResult second = monthlyReportJob.runIncremental();
+        assertTrue(second.months().contains("2023-03"));
+
+        march = reportService.findByAccountIdAndMonth(accountId, "2023-03");
+        assertEquals(350.00, march.getExpense());
+        assertEquals(march.getId(), reportService.findByAccountIdAndMonth(accountId, "2023-03").getId());
+        // April is inside the re-scan window; recomputing it must not double it.
+        assertEquals(200.00, reportService.findByAccountIdAndMonth(accountId, "2023-04").getIncome());
+    }
+
+    @Test
+    public void testFullRunRemovesReportsWithoutTransactions() {
+        String accountId = "ACC-F" + System.nanoTime();
+        insertTransaction(accountId, 80.00, LocalDate.of(2023, 8, 3), "DEPOSIT");
+        monthlyReportJob.runFull();
+        assertNotNull(reportService.findByAccountIdAndMonth(accountId, "2023-08"));
+
+        mongoTemplate.getCollection("transactions").deleteMany(new Document("account_id", accountId));
+        monthlyReportJob.runFull();
+        assertNull(reportService.findByAccountIdAndMonth(accountId, "2023-08"));
+    }
+
+    @Test
+    public void testIncrementalRunPicksUpLateInserts() {
+        String accountId = "ACC-L" + System.nanoTime();
+        insertTransaction(accountId, 100.00, LocalDate.of(2023, 5, 2), "DEPOSIT");
+        monthlyReportJob.runIncremental();
+
+        // Stamped a minute earlier, so its _id sorts below the saved watermark.
+        ObjectId lateId = new ObjectId(new Date(System.currentTimeMillis() - 60_000));
+        mongoTemplate.getCollection("transactions").insertOne(
+            transaction(accountId, 40.00, LocalDate.of(2023, 6, 7), "DEPOSIT").append("_id", lateId));
+        insertTransaction(accountId, 10.00, LocalDate.of(2023, 5, 9), "FEE");
+
+        ReportRunResult run = monthlyReportJob.runIncremental();
+        assertTrue(run.months().contains("2023-06"));
+        assertEquals(40.00, reportService.findByAccountIdAndMonth(accountId, "2023-06").getIncome());
+        assertEquals(10.00, reportService.findByAccountIdAndMonth(accountId, "2023-05").getExpense());
+    }
+
+    @Test
+    public void testCountersCoalesceAndReconcile() {
+        String accountId = "ACC-C" + System.nanoTime();
+        LocalDate day = LocalDate.of(2022, 7, 4);
+        for (int i = 0; i < 100; i++) {
+            insertTransaction(accountId, 10.00, day, "DEPOSIT");
+            reportCounterService.record(accountId, day, "DEPOSIT", 10.00);
+        }
+        insertTransaction(accountId, 25.00, day, "WITHDRAWAL");
+        reportCounterService.record(accountId, day, "WITHDRAWAL", 25.00);
+        reportCounterService.flush();
+
+        Report july = reportService.findByAccountIdAndMonth(accountId, "2022-07");
+        assertEquals(1000.00, july.getIncome(), 0.001);
+        assertEquals(25.00, july.getExpense(), 0.001);
+        assertTrue(mismatchesFor(accountId).isEmpty());
+
+        insertTransaction(accountId, 5.00, day, "FEE");
+        List<ReportMismatch> mismatches = mismatchesFor(accountId);
+        assertEquals(1, mismatches.size());
+        assertEquals(30.00, mismatches.get(0).expectedExpense(), 0.001);
+        assertEquals(25.00, mismatches.get(0).actualExpense(), 0.001);
+    }
+
+    @Test
+    public void testJobAfterPendingCountersNeedsReconcile() {
+        String accountId = "ACC-X" + System.nanoTime();
+        LocalDate day = LocalDate.of(2022, 9, 12);
+        insertTransaction(accountId, 70.00, day, "DEPOSIT");
+
+        // The job counts the transaction before its delta is flushed, so the
+        // delta adds it a second time.
+        monthlyReportJob.runFull();
+        reportCounterService.record(accountId, day, "DEPOSIT", 70.00);
+        reportCounterService.flush();
+        assertEquals(140.00, reportService.findByAccountIdAndMonth(accountId, "2022-09").getIncome(), 0.001);
+
+        List<ReportMismatch> mismatches = mismatchesFor(accountId);
+        assertEquals(1, mismatches.size());
+        assertEquals(70.00, mismatches.get(0).expectedIncome(), 0.001);
+
+        monthlyReportJob.runFull();
+        assertEquals(70.00, reportService.findByAccountIdAndMonth(accountId, "2022-09").getIncome(), 0.001);
+        assertTrue(mismatchesFor(accountId).isEmpty());
+    }
+
+    @Test
+    public void testCubeRefreshesIncrementally() {
+        String accountId = "ACC-Q" + System.nanoTime();
+        reportService.createReport(accountId, "2021-01", 100.00, 40.00);
+        reportService.createReport(accountId, "2021-02", 200.00, 60.00);
+        reportCubeService.refresh();
+
+        ReportCube cube = reportCubeService.cube();
+        assertEquals(300.00, cube.accountIncome(accountId), 0.001);
+        assertEquals(100.00, cube.accountExpense(accountId), 0.001);
+        assertEquals(60.00, cube.expense(accountId, "2021-02"), 0.001);
+        assertTrue(Double.isNaN(cube.income(accountId, "2021-03")));
+
+        reportCounterService.record(accountId, LocalDate.of(2021, 2, 10), "DEPOSIT", 50.00);
+        reportCounterService.flush();
+        reportCubeService.refresh();
+        assertEquals(250.00, cube.income(accountId, "2021-02"), 0.001);
+        assertEquals(350.00, cube.accountIncome(accountId), 0.001);
+
+        double[] visited = new double[1];
+        cube.forEachRowOfAccount(accountId, (account, month, income, expense) -> visited[0] += income);
+        assertEquals(350.00, visited[0], 0.001);
+    }
+
+    @Test
+    public void testCubeRebuildDropsDeletedReports() {
+        String accountId = "ACC-R" + System.nanoTime();
+        Report report = reportService.createReport(accountId, "2021-05", 90.00, 10.00);
+        reportCubeService.refresh();
+        assertEquals(90.00, reportCubeService.cube().accountIncome(accountId), 0.001);
+
+        reportService.deleteById(report.getId());
+        reportCubeService.refresh();
+        assertEquals(90.00, reportCubeService.cube().accountIncome(accountId), 0.001);
+
+        reportCubeService.rebuild();
+        assertTrue(Double.isNaN(reportCubeService.cube().income(accountId, "2021-05")));
+    }
+
+    @Test
+    public void testDashboardFacets() {
+        // A month unlikely to hold earlier runs' rows, so the totals are exact.
+        long seed = System.nanoTime();
+        String month = String.format("%04d-%02d", 1000 + seed % 2000, 1 + seed / 2000 % 12);
+        String prefix = "ACC-D" + seed;
+        reportService.createReport(prefix + "-A", month, 500.00, 100.00);
+        reportService.createReport(prefix + "-B", month, 300.00, 400.00);
+
+        ReportDashboard dashboard = dashboardService.dashboard(month, month, 1);
+        assertEquals(1, dashboard.topAccountsByExpense().size());
+        assertEquals(prefix + "-B", dashboard.topAccountsByExpense().get(0).accountId());
+        assertEquals(1, dashboard.monthlyTrend().size());
+        assertEquals(month, dashboard.monthlyTrend().get(0).month());
+        assertEquals(dashboard.totalIncome() - dashboard.totalExpense(), dashboard.netPosition(), 0.001);
+        assertEquals(800.00, dashboard.totalIncome(), 0.001);
+        assertEquals(500.00, dashboard.totalExpense(), 0.001);
+    }
+
+    private List<ReportMismatch> mismatchesFor(String accountId) {
+        return reportCounterService.reconcile().stream()
+            .filter(mismatch -> mismatch.accountId().equals(accountId))
+            .toList();
+    }
+
+    // Same shape as the m06 Transaction entity.
+    private void insertTransaction(String accountId, double amount, LocalDate date, String type) {
+        mongoTemplate.getCollection("transactions").insertOne(transaction(accountId, amount, date, type));
+    }
+
+    private static Document transaction(String accountId, double amount, LocalDate date, String type) {
+        return new Document("account_id", accountId)
+            .append("amount", amount)
+            .append("date", Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()))
+            .append("type", type);
+    }
+
+    @Test
+    public void testFindPageAfter() {
+        Report first = reportService.createReport("ACC-PAGE-" + System.nanoTime(), "2024-01", 100.00, 50.00);
+        Report second = reportService.createReport("ACC-PAGE-" + System.nanoTime(), "2024-01", 200.00, 50.00);
+
+        List<String> seen = new ArrayList<>();
+        String lastSeenId = null;
+        List<Report> page;
+        do {
+            page = reportService.findPageAfter(lastSeenId, 2);
+            page.forEach(item -> seen.add(item.getId()));
+            if (!page.isEmpty()) {
+                lastSeenId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 2);
+
+        assertTrue(seen.contains(first.getId()));
+        assertTrue(seen.contains(second.getId()));
+        assertEquals(seen.size(), new HashSet<>(seen).size());
+    }
+
+    @Test
+    public void testStreamAll() {
+        Report created = reportService.createReport("ACC-STREAM-" + System.nanoTime(), "2024-01", 300.00, 50.00);
+
+        try (Stream<Report> items = reportService.streamAll(2)) {
+            assertTrue(items.anyMatch(item -> item.getId().equals(created.getId())));
+        }
+    }
 }
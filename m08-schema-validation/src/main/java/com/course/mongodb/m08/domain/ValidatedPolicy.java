@@ -1,5 +1,10 @@
 package com.course.mongodb.m08.domain;
 
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -10,14 +15,22 @@ public class ValidatedPolicy {
     @Id
     private ObjectId id;
 
+    // The constraints are also the source of the collection's $jsonSchema,
+    // see PolicySchema.
+    @NotBlank
+    @Pattern(regexp = "^POL-[0-9]+(-[0-9]+)*$")
     @Field("policy_number")
     private String policyNumber;
 
     private boolean active;
 
+    @NotNull
+    @PositiveOrZero
     @Field("premium_amount")
     private Double premiumAmount;
 
+    @NotBlank
+    @Size(max = 100)
     private String holderName;
 
     public ValidatedPolicy() {
@@ -1,11 +1,16 @@
 package com.course.mongodb.m08.repository;
 
 import com.course.mongodb.m08.domain.ValidatedPolicy;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 
-public interface ValidatedPolicyRepository extends MongoRepository<ValidatedPolicy, String> {
+// Keyed on the entity's own ObjectId type, so ids go to the server as-is.
+public interface ValidatedPolicyRepository extends MongoRepository<ValidatedPolicy, ObjectId> {
     List<ValidatedPolicy> findByPolicyNumber(String policyNumber);
     List<ValidatedPolicy> findByActive(boolean active);
     List<ValidatedPolicy> findByHolderName(String holderName);
+    List<ValidatedPolicy> findAllByOrderByIdAsc(Limit limit);
+    List<ValidatedPolicy> findByIdGreaterThanOrderByIdAsc(ObjectId id, Limit limit);
 }
@@ -2,16 +2,39 @@ package com.course.mongodb.m08.service;
 
 import com.course.mongodb.m08.domain.ValidatedPolicy;
 import com.course.mongodb.m08.repository.ValidatedPolicyRepository;
+import com.course.mongodb.m08.validation.DocumentViolations;
+import com.course.mongodb.m08.validation.PolicyValidationException;
+import com.course.mongodb.m08.validation.PolicyValidator;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 public class ValidatedPolicyService {
 
+    private static final int DEFAULT_STREAM_BATCH_SIZE = 500;
+
     private final ValidatedPolicyRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final PolicyValidator policyValidator;
 
-    public ValidatedPolicyService(ValidatedPolicyRepository repository) {
+    public ValidatedPolicyService(ValidatedPolicyRepository repository, MongoTemplate mongoTemplate,
+            PolicyValidator policyValidator) {
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.policyValidator = policyValidator;
     }
 
     public ValidatedPolicy createPolicy(String policyNumber, boolean active, Double premiumAmount, String holderName) {
@@ -19,14 +42,84 @@ public class ValidatedPolicyService {
         return repository.save(policy);
     }
 
+    // Converts and validates the whole batch client-side, in parallel, and
+    // rejects it with every violation per document before any round trip.
+    // Valid batches go out as one insertMany.
+    public List<ValidatedPolicy> createPolicies(List<ValidatedPolicy> policies) {
+        List<Document> documents = policies.parallelStream().map(policyValidator::toDocument).toList();
+        List<DocumentViolations> failures = policyValidator.validateAll(documents);
+        if (!failures.isEmpty()) {
+            throw new PolicyValidationException(failures);
+        }
+        if (!documents.isEmpty()) {
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(ValidatedPolicy.class)).insertMany(documents);
+        }
+        for (int i = 0; i < policies.size(); i++) {
+            policies.get(i).setId(documents.get(i).getObjectId("_id"));
+        }
+        return policies;
+    }
+
     public List<ValidatedPolicy> findAll() {
         return repository.findAll();
     }
 
-    public ValidatedPolicy findById(String id) {
+    public Stream<ValidatedPolicy> streamAll() {
+        return streamAll(DEFAULT_STREAM_BATCH_SIZE);
+    }
+
+    public Stream<ValidatedPolicy> streamAll(int batchSize) {
+        return mongoTemplate.stream(new Query().cursorBatchSize(batchSize), ValidatedPolicy.class);
+    }
+
+    public List<ValidatedPolicy> findPageAfter(ObjectId lastSeenId, int pageSize) {
+        return lastSeenId == null
+            ? repository.findAllByOrderByIdAsc(Limit.of(pageSize))
+            : repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, Limit.of(pageSize));
+    }
+
+    public List<ValidatedPolicy> findPageAfter(String lastSeenId, int pageSize) {
+        return findPageAfter(lastSeenId == null ? null : new ObjectId(lastSeenId), pageSize);
+    }
+
+    public ValidatedPolicy findById(ObjectId id) {
         return repository.findById(id).orElse(null);
     }
 
+    // Hex-string ids are parsed once here; malformed ones are rejected
+    // with IllegalArgumentException.
+    public ValidatedPolicy findById(String id) {
+        return findById(new ObjectId(id));
+    }
+
+    // One $in query; results follow the order of the given ids, missing
+    // ids are skipped and duplicates collapse to one.
+    public List<ValidatedPolicy> findAllById(Collection<ObjectId> ids) {
+        Map<ObjectId, ValidatedPolicy> found = new HashMap<>();
+        for (ValidatedPolicy policy : repository.findAllById(ids)) {
+            found.put(policy.getId(), policy);
+        }
+        List<ValidatedPolicy> ordered = new ArrayList<>(found.size());
+        for (ObjectId id : new LinkedHashSet<>(ids)) {
+            ValidatedPolicy policy = found.get(id);
+            if (policy != null) {
+                ordered.add(policy);
+            }
+        }
+        return ordered;
+    }
+
+    // Single-field $set; the collection validator still checks the whole
+    // resulting document.
+    public boolean updatePremium(ObjectId id, Double premiumAmount) {
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id)),
+            new Update().set("premiumAmount", premiumAmount), ValidatedPolicy.class).getMatchedCount() > 0;
+    }
+
+    public boolean updatePremium(String id, Double premiumAmount) {
+        return updatePremium(new ObjectId(id), premiumAmount);
+    }
+
     public List<ValidatedPolicy> findByPolicyNumber(String policyNumber) {
         return repository.findByPolicyNumber(policyNumber);
     }
@@ -35,7 +128,11 @@ public class ValidatedPolicyService {
         return repository.findByActive(active);
     }
 
-    public void deleteById(String id) {
+    public void deleteById(ObjectId id) {
         repository.deleteById(id);
     }
+
+    public void deleteById(String id) {
+        deleteById(new ObjectId(id));
+    }
 }
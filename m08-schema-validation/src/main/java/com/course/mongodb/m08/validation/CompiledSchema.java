@@ -0,0 +1,39 @@
+package com.course.mongodb.m08.validation;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// A $jsonSchema compiled into a tree of rules. Immutable and thread-safe.
+public final class CompiledSchema {
+
+    @FunctionalInterface
+    interface Rule {
+        void check(String path, Object value, List<Violation> violations);
+    }
+
+    private final Rule root;
+
+    CompiledSchema(Rule root) {
+        this.root = root;
+    }
+
+    // Every violation in the document, not just the first.
+    public List<Violation> validate(Document document) {
+        List<Violation> violations = new ArrayList<>(0);
+        root.check("", document, violations);
+        return violations;
+    }
+
+    // Validates the batch on the common pool and returns only the failing
+    // documents, in batch order.
+    public List<DocumentViolations> validateAll(List<Document> documents) {
+        return IntStream.range(0, documents.size())
+            .parallel()
+            .mapToObj(i -> new DocumentViolations(i, validate(documents.get(i))))
+            .filter(result -> !result.violations().isEmpty())
+            .toList();
+    }
+}
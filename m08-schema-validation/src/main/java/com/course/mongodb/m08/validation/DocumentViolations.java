@@ -0,0 +1,7 @@
+package com.course.mongodb.m08.validation;
+
+import java.util.List;
+
+// All violations of one document; index is its position in the batch.
+public record DocumentViolations(int index, List<Violation> violations) {
+}
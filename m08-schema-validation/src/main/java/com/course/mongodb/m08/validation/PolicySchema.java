@@ -0,0 +1,121 @@
+package com.course.mongodb.m08.validation;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Derives a $jsonSchema from an entity's Bean Validation annotations, using
+ * the stored field names from the mapping. The same document is installed
+ * on the collection and compiled by {@link SchemaCompiler}, so client- and
+ * server-side rules cannot drift apart.
+ */
+public final class PolicySchema {
+
+    private static final Map<Class<?>, String> BSON_TYPES = Map.ofEntries(
+        Map.entry(String.class, "string"),
+        Map.entry(Double.class, "double"),
+        Map.entry(double.class, "double"),
+        Map.entry(Integer.class, "int"),
+        Map.entry(int.class, "int"),
+        Map.entry(Long.class, "long"),
+        Map.entry(long.class, "long"),
+        Map.entry(Boolean.class, "bool"),
+        Map.entry(boolean.class, "bool"),
+        Map.entry(ObjectId.class, "objectId"),
+        Map.entry(BigDecimal.class, "decimal"),
+        Map.entry(Decimal128.class, "decimal"),
+        Map.entry(Date.class, "date"),
+        Map.entry(Instant.class, "date"));
+
+    private PolicySchema() {
+    }
+
+    public static Document generate(MongoPersistentEntity<?> entity) {
+        List<String> required = new ArrayList<>();
+        Document properties = new Document();
+        entity.doWithProperties((MongoPersistentProperty property) -> {
+            String field = property.getFieldName();
+            Document rules = new Document();
+            String bsonType = BSON_TYPES.get(property.getType());
+            if (bsonType != null) {
+                rules.put("bsonType", bsonType);
+            }
+            if (!property.isIdProperty() && (property.getType().isPrimitive()
+                    || property.isAnnotationPresent(NotNull.class)
+                    || property.isAnnotationPresent(NotBlank.class)
+                    || property.isAnnotationPresent(NotEmpty.class))) {
+                required.add(field);
+            }
+            if (property.isAnnotationPresent(NotBlank.class)) {
+                // $jsonSchema has no "not only whitespace"; require a
+                // non-space character instead.
+                rules.put("pattern", "\\S");
+            }
+            if (property.isAnnotationPresent(NotEmpty.class)) {
+                rules.put("minLength", 1);
+            }
+            Pattern pattern = property.findAnnotation(Pattern.class);
+            if (pattern != null) {
+                rules.put("pattern", pattern.regexp());
+            }
+            Size size = property.findAnnotation(Size.class);
+            if (size != null) {
+                if (size.min() > 0) {
+                    rules.put("minLength", size.min());
+                }
+                if (size.max() < Integer.MAX_VALUE) {
+                    rules.put("maxLength", size.max());
+                }
+            }
+            Min min = property.findAnnotation(Min.class);
+            if (min != null) {
+                rules.put("minimum", min.value());
+            }
+            Max max = property.findAnnotation(Max.class);
+            if (max != null) {
+                rules.put("maximum", max.value());
+            }
+            DecimalMin decimalMin = property.findAnnotation(DecimalMin.class);
+            if (decimalMin != null) {
+                rules.put("minimum", Double.parseDouble(decimalMin.value()));
+                if (!decimalMin.inclusive()) {
+                    rules.put("exclusiveMinimum", true);
+                }
+            }
+            if (property.isAnnotationPresent(PositiveOrZero.class)) {
+                rules.put("minimum", 0);
+            }
+            if (property.isAnnotationPresent(Positive.class)) {
+                rules.put("minimum", 0);
+                rules.put("exclusiveMinimum", true);
+            }
+            properties.put(field, rules);
+        });
+        Document schema = new Document("bsonType", "object");
+        if (!required.isEmpty()) {
+            schema.put("required", required);
+        }
+        schema.put("properties", properties);
+        return schema;
+    }
+}
@@ -0,0 +1,42 @@
+package com.course.mongodb.m08.validation;
+
+import com.course.mongodb.m08.domain.ValidatedPolicy;
+import com.mongodb.client.model.ValidationAction;
+import com.mongodb.client.model.ValidationLevel;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+// Installs PolicyValidator's $jsonSchema on validated_policies at startup,
+// creating the collection if needed, with strict level and error action.
+@Component
+public class PolicySchemaInstaller {
+
+    private final MongoTemplate mongoTemplate;
+    private final PolicyValidator policyValidator;
+
+    public PolicySchemaInstaller(MongoTemplate mongoTemplate, PolicyValidator policyValidator) {
+        this.mongoTemplate = mongoTemplate;
+        this.policyValidator = policyValidator;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void install() {
+        install(policyValidator.schema(), ValidationLevel.STRICT, ValidationAction.ERROR);
+    }
+
+    // Any schema, level and action; ValidationLevel.OFF turns validation off
+    // but keeps the schema on the collection.
+    public void install(Document schema, ValidationLevel level, ValidationAction action) {
+        String collection = mongoTemplate.getCollectionName(ValidatedPolicy.class);
+        if (!mongoTemplate.collectionExists(collection)) {
+            mongoTemplate.createCollection(collection);
+        }
+        mongoTemplate.getDb().runCommand(new Document("collMod", collection)
+            .append("validator", new Document("$jsonSchema", schema))
+            .append("validationLevel", level.getValue())
+            .append("validationAction", action.getValue()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.course.mongodb.m08.validation;
+
+import java.util.List;
+
+public class PolicyValidationException extends IllegalArgumentException {
+
+    private final List<DocumentViolations> failures;
+
+    public PolicyValidationException(List<DocumentViolations> failures) {
+        super(failures.size() + " document(s) failed validation: " + failures);
+        this.failures = List.copyOf(failures);
+    }
+
+    public List<DocumentViolations> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,47 @@
+package com.course.mongodb.m08.validation;
+
+import com.course.mongodb.m08.domain.ValidatedPolicy;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Client-side check of ValidatedPolicy documents against the same
+ * $jsonSchema the collection enforces. Validates the converted document, so
+ * field names and types are exactly what would be sent.
+ */
+@Component
+public class PolicyValidator {
+
+    private final MongoConverter converter;
+    private final Document schema;
+    private final CompiledSchema compiled;
+
+    public PolicyValidator(MongoTemplate mongoTemplate) {
+        this.converter = mongoTemplate.getConverter();
+        this.schema = PolicySchema.generate(
+            converter.getMappingContext().getRequiredPersistentEntity(ValidatedPolicy.class));
+        this.compiled = SchemaCompiler.compile(schema);
+    }
+
+    public Document schema() {
+        return schema;
+    }
+
+    public Document toDocument(ValidatedPolicy policy) {
+        Document document = new Document();
+        converter.write(policy, document);
+        return document;
+    }
+
+    public List<Violation> validate(ValidatedPolicy policy) {
+        return compiled.validate(toDocument(policy));
+    }
+
+    public List<DocumentViolations> validateAll(List<Document> documents) {
+        return compiled.validateAll(documents);
+    }
+}
@@ -0,0 +1,197 @@
+package com.course.mongodb.m08.validation;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the subset of $jsonSchema that PolicySchema emits (bsonType,
+ * required, properties, pattern, min/maxLength, minimum/maximum with the
+ * draft-4 exclusive flags, enum) into {@link CompiledSchema} rules. Regexes
+ * and type sets are resolved once; compiled schemas are cached by schema.
+ * As on the server, a keyword only applies to values of its own type.
+ */
+public final class SchemaCompiler {
+
+    private static final Set<String> IGNORED = Set.of("title", "description", "exclusiveMinimum", "exclusiveMaximum");
+    private static final ConcurrentHashMap<Document, CompiledSchema> CACHE = new ConcurrentHashMap<>();
+
+    private SchemaCompiler() {
+    }
+
+    public static CompiledSchema compile(Document schema) {
+        return CACHE.computeIfAbsent(schema, s -> new CompiledSchema(node(s)));
+    }
+
+    private static CompiledSchema.Rule node(Document schema) {
+        List<CompiledSchema.Rule> rules = new ArrayList<>();
+        for (Map.Entry<String, Object> keyword : schema.entrySet()) {
+            Object argument = keyword.getValue();
+            switch (keyword.getKey()) {
+                case "bsonType" -> rules.add(bsonType(argument));
+                case "required" -> rules.add(required(castList(argument)));
+                case "properties" -> rules.add(properties((Document) argument));
+                case "pattern" -> rules.add(pattern((String) argument));
+                case "minLength" -> rules.add(minLength(((Number) argument).intValue()));
+                case "maxLength" -> rules.add(maxLength(((Number) argument).intValue()));
+                case "minimum" -> rules.add(minimum(((Number) argument).doubleValue(),
+                    Boolean.TRUE.equals(schema.get("exclusiveMinimum"))));
+                case "maximum" -> rules.add(maximum(((Number) argument).doubleValue(),
+                    Boolean.TRUE.equals(schema.get("exclusiveMaximum"))));
+                case "enum" -> rules.add(enumeration(castList(argument)));
+                default -> {
+                    if (!IGNORED.contains(keyword.getKey())) {
+                        throw new IllegalArgumentException("Unsupported $jsonSchema keyword: " + keyword.getKey());
+                    }
+                }
+            }
+        }
+        CompiledSchema.Rule[] compiled = rules.toArray(CompiledSchema.Rule[]::new);
+        return (path, value, violations) -> {
+            for (CompiledSchema.Rule rule : compiled) {
+                rule.check(path, value, violations);
+            }
+        };
+    }
+
+    private static CompiledSchema.Rule bsonType(Object argument) {
+        Set<String> allowed = argument instanceof List<?> list
+            ? Set.copyOf(castList(list))
+            : Set.of((String) argument);
+        boolean number = allowed.contains("number");
+        String expected = allowed.size() == 1 ? allowed.iterator().next() : allowed.toString();
+        return (path, value, violations) -> {
+            String actual = typeOf(value);
+            if (!allowed.contains(actual) && !(number && isNumber(actual))) {
+                violations.add(new Violation(path, "must be of type " + expected + " but was " + actual));
+            }
+        };
+    }
+
+    private static CompiledSchema.Rule required(List<String> fields) {
+        String[] names = fields.toArray(String[]::new);
+        return (path, value, violations) -> {
+            if (value instanceof Document document) {
+                for (String name : names) {
+                    if (!document.containsKey(name)) {
+                        violations.add(new Violation(child(path, name), "is required"));
+                    }
+                }
+            }
+        };
+    }
+
+    private static CompiledSchema.Rule properties(Document properties) {
+        Map<String, CompiledSchema.Rule> byName = new LinkedHashMap<>();
+        properties.forEach((name, schema) -> byName.put(name, node((Document) schema)));
+        return (path, value, violations) -> {
+            if (value instanceof Document document) {
+                byName.forEach((name, rule) -> {
+                    if (document.containsKey(name)) {
+                        rule.check(child(path, name), document.get(name), violations);
+                    }
+                });
+            }
+        };
+    }
+
+    private static CompiledSchema.Rule pattern(String regex) {
+        Pattern pattern = Pattern.compile(regex);
+        return (path, value, violations) -> {
+            if (value instanceof String text && !pattern.matcher(text).find()) {
+                violations.add(new Violation(path, "must match " + regex));
+            }
+        };
+    }
+
+    private static CompiledSchema.Rule minLength(int min) {
+        return (path, value, violations) -> {
+            if (value instanceof String text && text.codePointCount(0, text.length()) < min) {
+                violations.add(new Violation(path, "must be at least " + min + " characters"));
+            }
+        };
+    }
+
+    private static CompiledSchema.Rule maxLength(int max) {
+        return (path, value, violations) -> {
+            if (value instanceof String text && text.codePointCount(0, text.length()) > max) {
+                violations.add(new Violation(path, "must be at most " + max + " characters"));
+            }
+        };
+    }
+
+    private static CompiledSchema.Rule minimum(double min, boolean exclusive) {
+        return (path, value, violations) -> {
+            if (isNumber(typeOf(value))) {
+                double number = toDouble(value);
+                if (exclusive ? number <= min : number < min) {
+                    violations.add(new Violation(path, "must be " + (exclusive ? "greater than " : "at least ") + min));
+                }
+            }
+        };
+    }
+
+    private static CompiledSchema.Rule maximum(double max, boolean exclusive) {
+        return (path, value, violations) -> {
+            if (isNumber(typeOf(value))) {
+                double number = toDouble(value);
+                if (exclusive ? number >= max : number > max) {
+                    violations.add(new Violation(path, "must be " + (exclusive ? "less than " : "at most ") + max));
+                }
+            }
+        };
+    }
+
+    private static CompiledSchema.Rule enumeration(List<Object> values) {
+        Set<Object> allowed = Set.copyOf(values);
+        return (path, value, violations) -> {
+            if (!allowed.contains(value)) {
+                violations.add(new Violation(path, "must be one of " + values));
+            }
+        };
+    }
+
+    // BSON type alias of a decoded value, as $jsonSchema names it.
+    private static String typeOf(Object value) {
+        return switch (value) {
+            case null -> "null";
+            case String s -> "string";
+            case Double d -> "double";
+            case Integer i -> "int";
+            case Long l -> "long";
+            case Decimal128 d -> "decimal";
+            case Boolean b -> "bool";
+            case ObjectId id -> "objectId";
+            case Date d -> "date";
+            case Document d -> "object";
+            case List<?> l -> "array";
+            default -> value.getClass().getSimpleName();
+        };
+    }
+
+    private static boolean isNumber(String type) {
+        return type.equals("double") || type.equals("int") || type.equals("long") || type.equals("decimal");
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Decimal128 decimal ? decimal.bigDecimalValue().doubleValue() : ((Number) value).doubleValue();
+    }
+
+    private static String child(String path, String name) {
+        return path.isEmpty() ? name : path + "." + name;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> castList(Object value) {
+        return (List<T>) value;
+    }
+}
@@ -0,0 +1,5 @@
+package com.course.mongodb.m08.validation;
+
+// path is the stored field path, e.g. premium_amount.
+public record Violation(String path, String message) {
+}
@@ -0,0 +1,123 @@
+package com.course.mongodb.m08;
+
+import com.course.mongodb.m08.domain.ValidatedPolicy;
+import com.course.mongodb.m08.service.ValidatedPolicyService;
+import com.course.mongodb.m08.validation.PolicySchemaInstaller;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Looks up policies in a 1M-document collection by hex-string id (converted
+ * to ObjectId by the mapping layer on every call, as the former
+ * String-keyed repository did) and by ObjectId directly, one at a time and
+ * in $in batches. Prints the id conversion cost on its own and the mean
+ * time per lookup, and checks every lookup returns exactly the requested
+ * documents. Runs in the m08_benchmark database, as ValidationCostBenchmark
+ * does, so the application's validated_policies is never dropped.
+ */
+@SpringBootTest(properties = "spring.data.mongodb.database=m08_benchmark")
+@Tag("benchmark")
+public class ObjectIdLookupBenchmark {
+
+    private static final int POLICIES = 1_000_000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int SINGLE_LOOKUPS = 20_000;
+    private static final int BATCHES = 200;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Autowired
+    private ValidatedPolicyService policyService;
+
+    @Autowired
+    private PolicySchemaInstaller installer;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void compareStringAndObjectIdLookups() {
+        // Dropping removes the validator too; put the strict schema back so
+        // the load goes through the same validation as the application.
+        mongoTemplate.dropCollection(ValidatedPolicy.class);
+        installer.install();
+        List<ObjectId> ids = generate();
+        List<String> hexIds = ids.stream().map(ObjectId::toHexString).toList();
+        SplittableRandom random = new SplittableRandom(42);
+        int[] picks = random.ints(SINGLE_LOOKUPS + BATCHES * BATCH_SIZE, 0, POLICIES).toArray();
+
+        MongoConverter converter = mongoTemplate.getConverter();
+        double convertNanos = timeNanos(POLICIES, i -> converter.convertId(hexIds.get(i), ObjectId.class));
+
+        double stringSingle = timeNanos(SINGLE_LOOKUPS, i -> {
+            ValidatedPolicy policy = mongoTemplate.findById(hexIds.get(picks[i]), ValidatedPolicy.class);
+            assertEquals(ids.get(picks[i]), policy.getId());
+        });
+        double objectIdSingle = timeNanos(SINGLE_LOOKUPS, i -> {
+            ValidatedPolicy policy = policyService.findById(ids.get(picks[i]));
+            assertEquals(ids.get(picks[i]), policy.getId());
+        });
+
+        double stringBatch = timeNanos(BATCHES, b -> {
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(hexIds.get(picks[SINGLE_LOOKUPS + b * BATCH_SIZE + i]));
+            }
+            List<ValidatedPolicy> found = mongoTemplate.find(
+                Query.query(Criteria.where("id").in(batch)), ValidatedPolicy.class);
+            assertEquals(batch.stream().distinct().count(), found.size());
+        });
+        double objectIdBatch = timeNanos(BATCHES, b -> {
+            List<ObjectId> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(ids.get(picks[SINGLE_LOOKUPS + b * BATCH_SIZE + i]));
+            }
+            List<ValidatedPolicy> found = policyService.findAllById(batch);
+            assertEquals(batch.stream().distinct().toList(), found.stream().map(ValidatedPolicy::getId).toList());
+        });
+
+        System.out.printf("id conversion: %.0f ns/id%n", convertNanos);
+        System.out.printf("%-10s %16s %22s%n", "key type", "us/single lookup", "ms/batch of " + BATCH_SIZE);
+        System.out.printf("%-10s %16.1f %22.2f%n", "String", stringSingle / 1_000, stringBatch / 1_000_000);
+        System.out.printf("%-10s %16.1f %22.2f%n", "ObjectId", objectIdSingle / 1_000, objectIdBatch / 1_000_000);
+
+        assertNull(policyService.findById(new ObjectId()));
+    }
+
+    private List<ObjectId> generate() {
+        List<ObjectId> ids = new ArrayList<>(POLICIES);
+        for (int start = 0; start < POLICIES; start += INSERT_BATCH) {
+            List<ValidatedPolicy> batch = new ArrayList<>(INSERT_BATCH);
+            for (int i = start; i < start + INSERT_BATCH; i++) {
+                batch.add(new ValidatedPolicy("POL-" + i, i % 2 == 0, 100.0 + i % 1_000, "Holder " + i));
+            }
+            policyService.createPolicies(batch).forEach(policy -> ids.add(policy.getId()));
+        }
+        return ids;
+    }
+
+    // Mean nanoseconds per call, after one untimed pass over the first tenth.
+    private static double timeNanos(int count, IntConsumer operation) {
+        for (int i = 0; i < count / 10; i++) {
+            operation.accept(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            operation.accept(i);
+        }
+        return (System.nanoTime() - start) / (double) count;
+    }
+}
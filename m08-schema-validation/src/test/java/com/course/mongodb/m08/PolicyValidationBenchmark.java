@@ -0,0 +1,117 @@
+package com.course.mongodb.m08;
+
+import com.course.mongodb.m08.domain.ValidatedPolicy;
+import com.course.mongodb.m08.validation.CompiledSchema;
+import com.course.mongodb.m08.validation.PolicySchema;
+import com.course.mongodb.m08.validation.SchemaCompiler;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation throughput for a batch of policies (one in ten invalid):
+ * per-object Bean Validation against the compiled $jsonSchema, sequential
+ * and as a parallel batch. Compiled runs include the entity-to-document
+ * conversion they need. No database required.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Tag("benchmark")
+public class PolicyValidationBenchmark {
+
+    private static final int BATCH = 10_000;
+
+    private ValidatorFactory validatorFactory;
+    private Validator beanValidator;
+    private MappingMongoConverter converter;
+    private CompiledSchema compiled;
+    private List<ValidatedPolicy> policies;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        beanValidator = validatorFactory.getValidator();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.afterPropertiesSet();
+        compiled = SchemaCompiler.compile(
+            PolicySchema.generate(mappingContext.getRequiredPersistentEntity(ValidatedPolicy.class)));
+        policies = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            policies.add(i % 10 == 0
+                ? new ValidatedPolicy("BAD-" + i, true, -1.0, "")
+                : new ValidatedPolicy("POL-" + i, i % 2 == 0, 100.0 + i, "Holder " + i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void beanValidation(Blackhole blackhole) {
+        for (ValidatedPolicy policy : policies) {
+            blackhole.consume(beanValidator.validate(policy));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void compiledSchema(Blackhole blackhole) {
+        for (ValidatedPolicy policy : policies) {
+            blackhole.consume(compiled.validate(toDocument(policy)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Object compiledSchemaParallelBatch() {
+        List<Document> documents = policies.parallelStream().map(this::toDocument).toList();
+        return compiled.validateAll(documents);
+    }
+
+    private Document toDocument(ValidatedPolicy policy) {
+        Document document = new Document();
+        converter.write(policy, document);
+        return document;
+    }
+
+    @Test
+    void runBenchmarks() throws Exception {
+        new Runner(new OptionsBuilder()
+            .include(PolicyValidationBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -2,9 +2,19 @@ package com.course.mongodb.m08;
 
 import com.course.mongodb.m08.domain.ValidatedPolicy;
 import com.course.mongodb.m08.service.ValidatedPolicyService;
+import com.course.mongodb.m08.validation.DocumentViolations;
+import com.course.mongodb.m08.validation.PolicyValidationException;
+import com.course.mongodb.m08.validation.Violation;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,4 +46,75 @@ public class ValidatedPolicyServiceTest {
         var policies = policyService.findByActive(true);
         assertTrue(policies.size() >= 1);
     }
+
+    @Test
+    public void testCreatePoliciesReportsAllViolations() {
+        List<ValidatedPolicy> batch = new ArrayList<>(List.of(
+            new ValidatedPolicy("POL-200", true, 100.00, "Carol King"),
+            new ValidatedPolicy("BAD-1", true, -5.00, " "),
+            new ValidatedPolicy("POL-202", false, null, "Dave Lee")));
+
+        PolicyValidationException e = assertThrows(PolicyValidationException.class,
+            () -> policyService.createPolicies(batch));
+        List<DocumentViolations> failures = e.getFailures();
+        assertEquals(List.of(1, 2), failures.stream().map(DocumentViolations::index).toList());
+        assertEquals(List.of("policy_number", "premium_amount", "holderName"),
+            failures.get(0).violations().stream().map(Violation::path).toList());
+        assertEquals("premium_amount", failures.get(1).violations().get(0).path());
+
+        List<ValidatedPolicy> created = policyService.createPolicies(batch.subList(0, 1));
+        assertNotNull(created.get(0).getId());
+    }
+
+    @Test
+    public void testServerRejectsInvalidPolicy() {
+        assertThrows(DataAccessException.class, () -> policyService.createPolicy("POL-300", true, -1.00, "Eve Park"));
+
+        String id = policyService.createPolicy("POL-301", true, 10.00, "Eve Park").getId().toHexString();
+        assertThrows(DataAccessException.class, () -> policyService.updatePremium(id, -1.00));
+        assertTrue(policyService.updatePremium(id, 20.00));
+    }
+
+    @Test
+    public void testFindAllByIdKeepsRequestOrder() {
+        ValidatedPolicy first = policyService.createPolicy("POL-400", true, 1.00, "Fay Wong");
+        ValidatedPolicy second = policyService.createPolicy("POL-401", true, 2.00, "Gus Hart");
+
+        List<ValidatedPolicy> found = policyService.findAllById(
+            List.of(second.getId(), new ObjectId(), first.getId(), second.getId()));
+        assertEquals(List.of(second.getId(), first.getId()), found.stream().map(ValidatedPolicy::getId).toList());
+
+        assertEquals("POL-400", policyService.findById(first.getId().toHexString()).getPolicyNumber());
+        assertThrows(IllegalArgumentException.class, () -> policyService.findById("not-an-id"));
+    }
+
+    @Test
+    public void testFindPageAfter() {
+        ValidatedPolicy first = policyService.createPolicy("POL-500", true, 100.00, "Page One");
+        ValidatedPolicy second = policyService.createPolicy("POL-501", true, 200.00, "Page Two");
+
+        List<String> seen = new ArrayList<>();
+        String lastSeenId = null;
+        List<ValidatedPolicy> page;
+        do {
+            page = policyService.findPageAfter(lastSeenId, 2);
+            page.forEach(item -> seen.add(item.getId().toHexString()));
+            if (!page.isEmpty()) {
+                lastSeenId = page.get(page.size() - 1).getId().toHexString();
+            }
+        } while (page.size() == 2);
+
+        assertTrue(seen.contains(first.getId().toHexString()));
+        assertTrue(seen.contains(second.getId().toHexString()));
+        assertEquals(seen.size(), new HashSet<>(seen).size());
+    }
+
+    @Test
+    public void testStreamAll() {
+        ValidatedPolicy created = policyService.createPolicy("POL-502", true, 300.00, "Stream Me");
+
+        try (Stream<ValidatedPolicy> items = policyService.streamAll(2)) {
+            assertTrue(items.anyMatch(item -> item.getId().toHexString().equals(created.getId().toHexString())));
+        }
+    }
 }
@@ -0,0 +1,189 @@
+package com.course.mongodb.m08;
+
+import com.course.mongodb.m08.domain.ValidatedPolicy;
+import com.course.mongodb.m08.service.ValidatedPolicyService;
+import com.course.mongodb.m08.validation.PolicySchemaInstaller;
+import com.course.mongodb.m08.validation.PolicyValidator;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.ValidationAction;
+import com.mongodb.client.model.ValidationLevel;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cost of $jsonSchema validation on validated_policies: the same
+ * createPolicy and updatePremium workload with validation off,
+ * moderate/warn and strict/error, for three schema sizes. Prints ops/sec
+ * and p99 latency per setting.
+ *
+ * Uses the local mongod at -Dbenchmark.mongodb.uri (default
+ * mongodb://localhost:27017) and falls back to a Testcontainers mongod
+ * when nothing answers there.
+ */
+@SpringBootTest
+@Tag("benchmark")
+public class ValidationCostBenchmark {
+
+    private static final int OPERATIONS = 20_000;
+    private static final int WARMUP = 2_000;
+
+    private static MongoDBContainer container;
+
+    @DynamicPropertySource
+    static void mongoUri(DynamicPropertyRegistry registry) {
+        String local = System.getProperty("benchmark.mongodb.uri", "mongodb://localhost:27017");
+        if (reachable(local)) {
+            registry.add("spring.data.mongodb.uri", () -> local + "/m08_benchmark");
+            return;
+        }
+        container = new MongoDBContainer("mongo:7.0");
+        container.start();
+        registry.add("spring.data.mongodb.uri", () -> container.getReplicaSetUrl("m08_benchmark"));
+    }
+
+    private enum Setting {
+        OFF(ValidationLevel.OFF, ValidationAction.ERROR),
+        MODERATE_WARN(ValidationLevel.MODERATE, ValidationAction.WARN),
+        STRICT_ERROR(ValidationLevel.STRICT, ValidationAction.ERROR);
+
+        final ValidationLevel level;
+        final ValidationAction action;
+
+        Setting(ValidationLevel level, ValidationAction action) {
+            this.level = level;
+            this.action = action;
+        }
+    }
+
+    private enum Complexity {
+        TYPES_ONLY, GENERATED, HEAVY
+    }
+
+    @Autowired
+    private ValidatedPolicyService policyService;
+
+    @Autowired
+    private PolicySchemaInstaller installer;
+
+    @Autowired
+    private PolicyValidator policyValidator;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void measureValidationCost() {
+        System.out.printf("%-14s %-11s %12s %12s %12s %12s%n",
+            "setting", "schema", "insert op/s", "insert p99us", "update op/s", "update p99us");
+        try {
+            for (Complexity complexity : Complexity.values()) {
+                for (Setting setting : Setting.values()) {
+                    if (setting == Setting.OFF && complexity != Complexity.TYPES_ONLY) {
+                        continue;
+                    }
+                    run(setting, complexity);
+                }
+            }
+        } finally {
+            installer.install();
+        }
+    }
+
+    private void run(Setting setting, Complexity complexity) {
+        mongoTemplate.dropCollection(ValidatedPolicy.class);
+        installer.install(schema(complexity), setting.level, setting.action);
+
+        List<ObjectId> ids = new ArrayList<>(OPERATIONS + WARMUP);
+        Result insert = measure(i -> ids.add(policyService
+            .createPolicy("POL-" + i, i % 2 == 0, 100.0 + i, "Holder " + i).getId()));
+        Result update = measure(i -> assertTrue(policyService.updatePremium(ids.get(i), 200.0 + i)));
+
+        System.out.printf("%-14s %-11s %12.0f %12.0f %12.0f %12.0f%n", setting,
+            setting == Setting.OFF ? "-" : complexity, insert.opsPerSecond(), insert.p99Micros(),
+            update.opsPerSecond(), update.p99Micros());
+    }
+
+    private Result measure(IntConsumer operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.accept(i);
+        }
+        long[] latencies = new long[OPERATIONS];
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            long before = System.nanoTime();
+            operation.accept(WARMUP + i);
+            latencies[i] = System.nanoTime() - before;
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new Result(OPERATIONS * 1_000_000_000.0 / elapsed,
+            latencies[(int) Math.ceil(OPERATIONS * 0.99) - 1] / 1_000.0);
+    }
+
+    private Document schema(Complexity complexity) {
+        Document generated = policyValidator.schema();
+        return switch (complexity) {
+            case TYPES_ONLY -> typesOnly(generated);
+            case GENERATED -> generated;
+            // The generated rules plus several regex and range checks that
+            // every write has to pass.
+            case HEAVY -> new Document("allOf", List.of(generated,
+                new Document("properties", new Document("holderName", new Document("pattern", "^[A-Z][a-z]+( [A-Za-z0-9]+)*$"))
+                    .append("policy_number", new Document("pattern", "^POL-(0|[1-9][0-9]{0,9})$"))),
+                new Document("properties", new Document("holderName", new Document("maxLength", 80).append("minLength", 2))
+                    .append("premium_amount", new Document("maximum", 1_000_000_000))),
+                new Document("properties", new Document("_class", new Document("bsonType", "string")))));
+        };
+    }
+
+    // Same required fields and types, no value constraints.
+    private static Document typesOnly(Document generated) {
+        Document properties = new Document();
+        generated.get("properties", Document.class).forEach((field, rules) -> {
+            Document fieldRules = new Document();
+            Object bsonType = ((Document) rules).get("bsonType");
+            if (bsonType != null) {
+                fieldRules.put("bsonType", bsonType);
+            }
+            properties.put(field, fieldRules);
+        });
+        return new Document("bsonType", "object")
+            .append("required", generated.get("required"))
+            .append("properties", properties);
+    }
+
+    private static boolean reachable(String uri) {
+        MongoClientSettings settings = MongoClientSettings.builder()
+            .applyConnectionString(new ConnectionString(uri))
+            .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(1, TimeUnit.SECONDS))
+            .build();
+        try (MongoClient client = MongoClients.create(settings)) {
+            client.getDatabase("admin").runCommand(new Document("ping", 1));
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private record Result(double opsPerSecond, double p99Micros) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.course.mongodb.m09.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+@Document(collection = "accounts")
+public class Account {
+    @Id
+    private String id;
+
+    @Indexed(unique = true)
+    @Field("account_number")
+    private String accountNumber;
+
+    private Double balance;
+
+    public Account() {
+    }
+
+    public Account(String accountNumber, Double balance) {
+        this.accountNumber = accountNumber;
+        this.balance = balance;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getAccountNumber() { return accountNumber; }
+    public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+    public Double getBalance() { return balance; }
+    public void setBalance(Double balance) { this.balance = balance; }
+}
@@ -0,0 +1,9 @@
+package com.course.mongodb.m09.repository;
+
+import com.course.mongodb.m09.domain.Account;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import java.util.Optional;
+
+public interface AccountRepository extends MongoRepository<Account, String> {
+    Optional<Account> findByAccountNumber(String accountNumber);
+}
@@ -1,6 +1,7 @@
 package com.course.mongodb.m09.repository;
 
 import com.course.mongodb.m09.domain.Transfer;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 
@@ -8,4 +9,6 @@ public interface TransferRepository extends MongoRepository<Transfer, String> {
     List<Transfer> findByFromAccount(String fromAccount);
     List<Transfer> findByToAccount(String toAccount);
     List<Transfer> findByStatus(String status);
+    List<Transfer> findAllByOrderByIdAsc(Limit limit);
+    List<Transfer> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
@@ -0,0 +1,225 @@
+package com.course.mongodb.m09.service;
+
+import com.course.mongodb.m09.domain.Account;
+import com.course.mongodb.m09.domain.Transfer;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadPreference;
+import com.mongodb.TransactionOptions;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoClient;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves money between two accounts and records the Transfer in one
+ * multi-document transaction. Whole transactions are retried on
+ * TransientTransactionError (e.g. write conflicts between concurrent
+ * transfers), the commit alone on UnknownTransactionCommitResult, both with
+ * full-jitter exponential backoff, until {@link #RETRY_TIME_LIMIT} has
+ * passed since the transfer started, as the driver's withTransaction does.
+ * A time limit rather than an attempt count keeps hot accounts, where many
+ * transfers conflict at once, from failing transfers that would succeed a
+ * little later. Needs a replica set.
+ */
+@Service
+public class TransferEngine {
+
+    static final Duration RETRY_TIME_LIMIT = Duration.ofSeconds(120);
+    // Abort reasons for the two business failures; server errors are keyed
+    // by their error code name, anything else by exception class.
+    public static final String ABORT_NOT_FOUND = "NOT_FOUND";
+    public static final String ABORT_INSUFFICIENT_FUNDS = "INSUFFICIENT_FUNDS";
+    private static final long BASE_BACKOFF_MILLIS = 5;
+    private static final long MAX_BACKOFF_MILLIS = 500;
+
+    private static final TransactionOptions TRANSACTION_OPTIONS = TransactionOptions.builder()
+        .readConcern(ReadConcern.SNAPSHOT)
+        .writeConcern(WriteConcern.MAJORITY)
+        .readPreference(ReadPreference.primary())
+        .build();
+
+    private static final MongoExceptionTranslator EXCEPTION_TRANSLATOR = new MongoExceptionTranslator();
+
+    private final MongoClient mongoClient;
+    private final MongoTemplate mongoTemplate;
+
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder transactionRetries = new LongAdder();
+    private final LongAdder commitRetries = new LongAdder();
+    private final LongAdder commitNanos = new LongAdder();
+    private final LongAccumulator maxCommitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder transferNanos = new LongAdder();
+    private final Map<String, LongAdder> abortReasons = new ConcurrentHashMap<>();
+
+    public TransferEngine(MongoClient mongoClient, MongoTemplate mongoTemplate) {
+        this.mongoClient = mongoClient;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Debits fromAccount, credits toAccount and inserts a COMPLETED Transfer,
+    // all or nothing. Unknown accounts fail with IllegalArgumentException,
+    // an uncovered debit with IllegalStateException; neither is retried.
+    public Transfer transfer(String fromAccount, String toAccount, Double amount) {
+        if (amount == null || !(amount > 0)) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        if (fromAccount.equals(toAccount)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+        long start = System.nanoTime();
+        long deadline = start + RETRY_TIME_LIMIT.toNanos();
+        for (int attempt = 1; ; attempt++) {
+            try (ClientSession session = mongoClient.startSession()) {
+                session.startTransaction(TRANSACTION_OPTIONS);
+                try {
+                    Transfer transfer = apply(mongoTemplate.withSession(session), fromAccount, toAccount, amount);
+                    commit(session, deadline);
+                    committed.increment();
+                    transferNanos.add(System.nanoTime() - start);
+                    return transfer;
+                } catch (RuntimeException e) {
+                    abortQuietly(session);
+                    abortReasons.computeIfAbsent(reason(e), key -> new LongAdder()).increment();
+                    MongoException mongo = mongoCause(e);
+                    if (mongo != null && mongo.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)
+                            && System.nanoTime() - deadline < 0) {
+                        transactionRetries.increment();
+                        backoff(attempt);
+                        continue;
+                    }
+                    failed.increment();
+                    throw translate(e);
+                }
+            }
+        }
+    }
+
+    public TransferMetrics metrics() {
+        long count = committed.sum();
+        Map<String, Long> reasons = new TreeMap<>();
+        abortReasons.forEach((reason, adder) -> reasons.put(reason, adder.sum()));
+        return new TransferMetrics(count, failed.sum(), transactionRetries.sum(), commitRetries.sum(),
+            count == 0 ? 0 : commitNanos.sum() / 1_000_000.0 / count,
+            maxCommitNanos.get() / 1_000_000.0,
+            count == 0 ? 0 : transferNanos.sum() / 1_000_000.0 / count,
+            reasons);
+    }
+
+    private Transfer apply(MongoTemplate template, String fromAccount, String toAccount, Double amount) {
+        Query debit = Query.query(Criteria.where("accountNumber").is(fromAccount).and("balance").gte(amount));
+        if (template.updateFirst(debit, new Update().inc("balance", -amount), Account.class).getMatchedCount() == 0) {
+            if (!template.exists(Query.query(Criteria.where("accountNumber").is(fromAccount)), Account.class)) {
+                throw new IllegalArgumentException("Account not found");
+            }
+            throw new IllegalStateException("Insufficient funds");
+        }
+        Query credit = Query.query(Criteria.where("accountNumber").is(toAccount));
+        if (template.updateFirst(credit, new Update().inc("balance", amount), Account.class).getMatchedCount() == 0) {
+            throw new IllegalArgumentException("Account not found");
+        }
+        return template.insert(new Transfer(fromAccount, toAccount, amount, "COMPLETED"));
+    }
+
+    // The outcome of a commit that failed with UnknownTransactionCommitResult
+    // is unknown; committing again is safe and settles it.
+    private void commit(ClientSession session, long deadline) {
+        long start = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                session.commitTransaction();
+                long elapsed = System.nanoTime() - start;
+                commitNanos.add(elapsed);
+                maxCommitNanos.accumulate(elapsed);
+                return;
+            } catch (MongoException e) {
+                if (!e.hasErrorLabel(MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL)
+                        || System.nanoTime() - deadline >= 0) {
+                    throw e;
+                }
+                commitRetries.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    // Aborting after a failed commit is rejected by the driver; closing the
+    // session cleans up in that case.
+    private static void abortQuietly(ClientSession session) {
+        if (session.hasActiveTransaction()) {
+            try {
+                session.abortTransaction();
+            } catch (RuntimeException ignored) {
+                // the session is closed right after
+            }
+        }
+    }
+
+    // Full jitter: a random sleep up to the exponentially growing cap, so
+    // transfers that conflicted once do not collide again in lockstep.
+    private static void backoff(int attempt) {
+        long cap = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying transfer", e);
+        }
+    }
+
+    static String reason(Throwable e) {
+        MongoException mongo = mongoCause(e);
+        if (mongo instanceof MongoCommandException command) {
+            return command.getErrorCodeName();
+        }
+        if (mongo != null) {
+            return mongo.getClass().getSimpleName();
+        }
+        // apply() signals an unknown account with IllegalArgumentException
+        // and an uncovered debit with IllegalStateException.
+        if (e instanceof IllegalArgumentException) {
+            return ABORT_NOT_FOUND;
+        }
+        if (e instanceof IllegalStateException) {
+            return ABORT_INSUFFICIENT_FUNDS;
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    // MongoTemplate wraps driver exceptions in DataAccessException; the
+    // error labels live on the driver exception.
+    private static MongoException mongoCause(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof MongoException mongo) {
+                return mongo;
+            }
+        }
+        return null;
+    }
+
+    private static RuntimeException translate(RuntimeException e) {
+        if (e instanceof MongoException mongo) {
+            DataAccessException translated = EXCEPTION_TRANSLATOR.translateExceptionIfPossible(mongo);
+            if (translated != null) {
+                return translated;
+            }
+        }
+        return e;
+    }
+}
@@ -0,0 +1,11 @@
+package com.course.mongodb.m09.service;
+
+import java.util.Map;
+
+// Snapshot of TransferEngine counters. abortReasons counts every aborted
+// attempt, retried or not, by server error code name, NOT_FOUND,
+// INSUFFICIENT_FUNDS or exception class.
+public record TransferMetrics(long committed, long failed, long transactionRetries, long commitRetries,
+        double meanCommitMillis, double maxCommitMillis, double meanTransferMillis,
+        Map<String, Long> abortReasons) {
+}
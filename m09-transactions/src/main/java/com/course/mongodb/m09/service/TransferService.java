@@ -2,16 +2,24 @@ package com.course.mongodb.m09.service;
 
 import com.course.mongodb.m09.domain.Transfer;
 import com.course.mongodb.m09.repository.TransferRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class TransferService {
 
+    private static final int DEFAULT_STREAM_BATCH_SIZE = 500;
+
     private final TransferRepository repository;
+    private final MongoTemplate mongoTemplate;
 
-    public TransferService(TransferRepository repository) {
+    public TransferService(TransferRepository repository, MongoTemplate mongoTemplate) {
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public Transfer createTransfer(String fromAccount, String toAccount, Double amount, String status) {
@@ -23,6 +31,20 @@ public class TransferService {
         return repository.findAll();
     }
 
+    public Stream<Transfer> streamAll() {
+        return streamAll(DEFAULT_STREAM_BATCH_SIZE);
+    }
+
+    public Stream<Transfer> streamAll(int batchSize) {
+        return mongoTemplate.stream(new Query().cursorBatchSize(batchSize), Transfer.class);
+    }
+
+    public List<Transfer> findPageAfter(String lastSeenId, int pageSize) {
+        return lastSeenId == null
+            ? repository.findAllByOrderByIdAsc(Limit.of(pageSize))
+            : repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, Limit.of(pageSize));
+    }
+
     public Transfer findById(String id) {
         return repository.findById(id).orElse(null);
     }
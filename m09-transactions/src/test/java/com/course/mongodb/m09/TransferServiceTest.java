@@ -1,19 +1,38 @@
 package com.course.mongodb.m09;
 
+import com.course.mongodb.m09.domain.Account;
 import com.course.mongodb.m09.domain.Transfer;
+import com.course.mongodb.m09.repository.AccountRepository;
+import com.course.mongodb.m09.service.TransferEngine;
+import com.course.mongodb.m09.service.TransferMetrics;
 import com.course.mongodb.m09.service.TransferService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
 import static org.junit.jupiter.api.Assertions.*;
 
+// Transactions need a replica set, hence the container.
 @SpringBootTest
-public class TransferServiceTest {
+public class TransferServiceTest extends MongoIntegrationTest {
 
     @Autowired
     private TransferService transferService;
 
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
     @Test
     public void contextLoads() {
     }
@@ -36,4 +55,105 @@ public class TransferServiceTest {
         var transfers = transferService.findByStatus("COMPLETED");
         assertTrue(transfers.size() >= 1);
     }
+
+    @Test
+    public void testTransferMovesMoneyAndRecordsTransfer() {
+        String from = openAccount(50_000.00);
+        String to = openAccount(10_000.00);
+
+        Transfer transfer = transferEngine.transfer(from, to, 20_000.00);
+
+        assertEquals("COMPLETED", transferService.findById(transfer.getId()).getStatus());
+        assertEquals(30_000.00, balance(from));
+        assertEquals(30_000.00, balance(to));
+    }
+
+    @Test
+    public void testFailedTransferRollsBack() {
+        String from = openAccount(5_000.00);
+        String to = openAccount(0.00);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> transferEngine.transfer(from, to, 20_000.00));
+        assertEquals("Insufficient funds", e.getMessage());
+        // The debit already applied is rolled back with the transaction.
+        assertThrows(IllegalArgumentException.class, () -> transferEngine.transfer(from, "ACC-MISSING", 1_000.00));
+
+        assertEquals(5_000.00, balance(from));
+        assertEquals(0.00, balance(to));
+        assertTrue(transferService.findByFromAccount(from).isEmpty());
+        TransferMetrics metrics = transferEngine.metrics();
+        assertTrue(metrics.abortReasons().get(TransferEngine.ABORT_INSUFFICIENT_FUNDS) >= 1);
+        assertTrue(metrics.abortReasons().get(TransferEngine.ABORT_NOT_FOUND) >= 1);
+    }
+
+    @Test
+    public void testConcurrentTransfersRetryAndConserveMoney() throws Exception {
+        String from = openAccount(1_000.00);
+        String to = openAccount(0.00);
+        int threads = 8;
+        int transfersPerThread = 25;
+        long committedBefore = transferEngine.metrics().committed();
+        long retriesBefore = transferEngine.metrics().transactionRetries();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < transfersPerThread; i++) {
+                    transferEngine.transfer(from, to, 1.00);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(800.00, balance(from));
+        assertEquals(200.00, balance(to));
+        assertEquals(threads * transfersPerThread, transferService.findByFromAccount(from).size());
+        TransferMetrics metrics = transferEngine.metrics();
+        assertEquals(committedBefore + threads * transfersPerThread, metrics.committed());
+        assertTrue(metrics.transactionRetries() > retriesBefore);
+        assertTrue(metrics.maxCommitMillis() > 0);
+    }
+
+    private String openAccount(Double balance) {
+        return accountRepository.save(new Account("ACC-" + System.nanoTime(), balance)).getAccountNumber();
+    }
+
+    private Double balance(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber).orElseThrow().getBalance();
+    }
+
+    @Test
+    public void testFindPageAfter() {
+        Transfer first = transferService.createTransfer("ACC-PAGE-1", "ACC-PAGE-2", 10.00, "PENDING");
+        Transfer second = transferService.createTransfer("ACC-PAGE-1", "ACC-PAGE-2", 20.00, "PENDING");
+
+        List<String> seen = new ArrayList<>();
+        String lastSeenId = null;
+        List<Transfer> page;
+        do {
+            page = transferService.findPageAfter(lastSeenId, 2);
+            page.forEach(item -> seen.add(item.getId()));
+            if (!page.isEmpty()) {
+                lastSeenId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 2);
+
+        assertTrue(seen.contains(first.getId()));
+        assertTrue(seen.contains(second.getId()));
+        assertEquals(seen.size(), new HashSet<>(seen).size());
+    }
+
+    @Test
+    public void testStreamAll() {
+        Transfer created = transferService.createTransfer("ACC-STREAM-1", "ACC-STREAM-2", 30.00, "PENDING");
+
+        try (Stream<Transfer> items = transferService.streamAll(2)) {
+            assertTrue(items.anyMatch(item -> item.getId().equals(created.getId())));
+        }
+    }
 }
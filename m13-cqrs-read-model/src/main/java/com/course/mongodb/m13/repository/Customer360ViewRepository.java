@@ -1,12 +1,16 @@
 package com.course.mongodb.m13.repository;
 
 import com.course.mongodb.m13.domain.Customer360View;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface Customer360ViewRepository extends MongoRepository<Customer360View, String> {
     Optional<Customer360View> findByCustomerId(String customerId);
+    List<Customer360View> findAllByOrderByIdAsc(Limit limit);
+    List<Customer360View> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
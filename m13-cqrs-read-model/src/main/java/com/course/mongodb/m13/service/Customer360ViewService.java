@@ -2,18 +2,26 @@ package com.course.mongodb.m13.service;
 
 import com.course.mongodb.m13.domain.Customer360View;
 import com.course.mongodb.m13.repository.Customer360ViewRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class Customer360ViewService {
 
+    private static final int DEFAULT_STREAM_BATCH_SIZE = 500;
+
     private final Customer360ViewRepository repository;
+    private final MongoTemplate mongoTemplate;
 
-    public Customer360ViewService(Customer360ViewRepository repository) {
+    public Customer360ViewService(Customer360ViewRepository repository, MongoTemplate mongoTemplate) {
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public Customer360View createCustomerView(String customerId, String name, String email) {
@@ -33,6 +41,20 @@ public class Customer360ViewService {
         return repository.findAll();
     }
 
+    public Stream<Customer360View> streamAll() {
+        return streamAll(DEFAULT_STREAM_BATCH_SIZE);
+    }
+
+    public Stream<Customer360View> streamAll(int batchSize) {
+        return mongoTemplate.stream(new Query().cursorBatchSize(batchSize), Customer360View.class);
+    }
+
+    public List<Customer360View> findPageAfter(String lastSeenId, int pageSize) {
+        return lastSeenId == null
+            ? repository.findAllByOrderByIdAsc(Limit.of(pageSize))
+            : repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, Limit.of(pageSize));
+    }
+
     public Customer360View updateAccounts(String customerId, List<Customer360View.AccountSummary> accounts) {
         Customer360View view = repository.findByCustomerId(customerId)
             .orElseThrow(() -> new IllegalArgumentException("Customer not found"));
@@ -1,19 +1,26 @@
 package com.course.mongodb.m13;
 
 import com.course.mongodb.m13.domain.Customer360View;
+import com.course.mongodb.m13.repository.Customer360ViewRepository;
 import com.course.mongodb.m13.service.Customer360ViewService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,6 +29,9 @@ class Customer360ViewServiceTest {
     @Mock
     private Customer360ViewRepository repository;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
     @InjectMocks
     private Customer360ViewService service;
 
@@ -93,4 +103,29 @@ class Customer360ViewServiceTest {
 
         verify(repository).delete(view);
     }
+
+    @Test
+    void findPageAfter_shouldStartFromFirstIdThenContinueAfterLastSeen() {
+        List<Customer360View> firstPage = List.of(new Customer360View("customer1", "Page One", "page1@example.com"));
+        List<Customer360View> nextPage = List.of(new Customer360View("customer2", "Page Two", "page2@example.com"));
+        when(repository.findAllByOrderByIdAsc(any(Limit.class))).thenReturn(firstPage);
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq("id-1"), any(Limit.class))).thenReturn(nextPage);
+
+        assertEquals(firstPage, service.findPageAfter(null, 2));
+        assertEquals(nextPage, service.findPageAfter("id-1", 2));
+        verify(repository).findByIdGreaterThanOrderByIdAsc("id-1", Limit.of(2));
+    }
+
+    @Test
+    void streamAll_shouldUseCursorWithBatchSize() {
+        when(mongoTemplate.stream(any(Query.class), eq(Customer360View.class))).thenReturn(Stream.empty());
+
+        try (Stream<Customer360View> views = service.streamAll(2)) {
+            assertEquals(0, views.count());
+        }
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(Customer360View.class));
+        assertEquals(2, query.getValue().getMeta().getCursorBatchSize());
+    }
 }
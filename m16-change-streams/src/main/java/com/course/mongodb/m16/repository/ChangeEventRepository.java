@@ -1,6 +1,7 @@
 package com.course.mongodb.m16.repository;
 
 import com.course.mongodb.m16.domain.ChangeEvent;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,4 +15,5 @@ public interface ChangeEventRepository extends MongoRepository<ChangeEvent, Stri
     List<ChangeEvent> findByProcessed(ChangeEvent.EventStatus processed);
     Optional<ChangeEvent> findByDocumentKey(String documentKey);
     List<ChangeEvent> findByDocumentKeyAndOperationType(String documentKey, ChangeEvent.OperationType operationType);
+    List<ChangeEvent> findAllByOrderByReceivedAtDesc(Limit limit);
 }
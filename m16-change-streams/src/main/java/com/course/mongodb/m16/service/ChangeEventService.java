@@ -2,6 +2,7 @@ package com.course.mongodb.m16.service;
 
 import com.course.mongodb.m16.domain.ChangeEvent;
 import com.course.mongodb.m16.repository.ChangeEventRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -63,9 +64,6 @@ public class ChangeEventService {
     }
 
     public List<ChangeEvent> findRecentEvents(int limit) {
-        return repository.findAll().stream()
-            .sorted((a, b) -> b.getReceivedAt().compareTo(a.getReceivedAt()))
-            .limit(limit)
-            .toList();
+        return repository.findAllByOrderByReceivedAtDesc(Limit.of(limit));
     }
 }
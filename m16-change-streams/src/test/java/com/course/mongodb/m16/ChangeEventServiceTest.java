@@ -1,13 +1,16 @@
 package com.course.mongodb.m16;
 
 import com.course.mongodb.m16.domain.ChangeEvent;
+import com.course.mongodb.m16.repository.ChangeEventRepository;
 import com.course.mongodb.m16.service.ChangeEventService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -88,4 +91,13 @@ class ChangeEventServiceTest {
         assertTrue(result.isPresent());
         assertEquals("prod123", result.get().getDocumentKey());
     }
+
+    @Test
+    void findRecentEvents_shouldQueryNewestFirstWithLimit() {
+        List<ChangeEvent> recent = List.of(new ChangeEvent(ChangeEvent.OperationType.INSERT, "customers", "cust789"));
+        when(repository.findAllByOrderByReceivedAtDesc(Limit.of(5))).thenReturn(recent);
+
+        assertEquals(recent, service.findRecentEvents(5));
+        verify(repository, never()).findAll();
+    }
 }